@@ -0,0 +1,53 @@
+package com.digital.order.benchmarks;
+
+import com.digital.order.OrderApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Boots the order service against an embedded PostgreSQL, so the native queries and Liquibase changelog run
+ * as in production. RabbitMQ is not needed: listener containers stay stopped and nothing in the benchmarked
+ * paths publishes.
+ */
+final class EmbeddedOrderService implements AutoCloseable {
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedOrderService(EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    static EmbeddedOrderService start(String... properties) throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        // Passed as command-line arguments so they override application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.rabbitmq.listener.simple.auto-startup=false",
+                "--spring.rabbitmq.listener.direct.auto-startup=false",
+                "--server.port=0",
+                "--logging.level.root=WARN"));
+        Arrays.stream(properties).map(property -> "--" + property).forEach(args::add);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(OrderApplication.class)
+                .run(args.toArray(String[]::new));
+        return new EmbeddedOrderService(postgres, context);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        postgres.close();
+    }
+}
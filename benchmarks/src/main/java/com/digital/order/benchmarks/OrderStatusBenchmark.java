@@ -0,0 +1,87 @@
+package com.digital.order.benchmarks;
+
+import com.digital.order.dto.QueueRequest;
+import com.digital.order.model.Order;
+import com.digital.order.repository.OrderRepository;
+import com.digital.order.service.OrderStatusVersions;
+import com.digital.order.service.QueueService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The polling path: {@code getOrderStatus} with the status cache on (hits) and off (order, rank and wait
+ * estimate loaded on every call), and the ETag version check that answers 304s.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderStatusBenchmark {
+    private static final int WAITING = 1_000;
+
+    @Param({"10000", "0"})
+    int statusCacheSize;
+
+    private EmbeddedOrderService service;
+    private QueueService queueService;
+    private OrderStatusVersions versions;
+    private long[] orderIds;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        service = EmbeddedOrderService.start("order.status-cache.max-size=" + statusCacheSize);
+        queueService = service.bean(QueueService.class);
+        versions = service.bean(OrderStatusVersions.class);
+
+        QueueRequest request = new QueueRequest();
+        request.setShopId(QueueServiceBenchmark.SHOP_ID);
+        request.setName("bench");
+        request.setMaxSize(WAITING);
+        Long queueId = queueService.createQueue(request).getId();
+
+        List<Order> orders = service.bean(OrderRepository.class).saveAll(QueueServiceBenchmark.newOrders(WAITING));
+        orderIds = new long[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            queueService.addOrderToQueue(queueId, orders.get(i));
+            orderIds[i] = orders.get(i).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        service.close();
+    }
+
+    @Benchmark
+    public Object getOrderStatus() {
+        return queueService.getOrderStatus(nextOrderId());
+    }
+
+    @Benchmark
+    public long statusVersion() {
+        return versions.version(nextOrderId());
+    }
+
+    private long nextOrderId() {
+        return orderIds[Math.floorMod(cursor.getAndIncrement(), orderIds.length)];
+    }
+}
@@ -0,0 +1,139 @@
+package com.digital.order.benchmarks;
+
+import com.digital.order.dto.QueueRequest;
+import com.digital.order.model.Order;
+import com.digital.order.model.Queue;
+import com.digital.order.repository.OrderRepository;
+import com.digital.order.service.QueueService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queue writes against PostgreSQL: ticket claim plus entry insert, the rank-preserving removal, and shortest
+ * queue assignment across a shop. Each queue is pre-filled with {@code queueDepth} waiting orders and every
+ * invocation undoes its own change, so the depth stays constant over the run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QueueServiceBenchmark {
+    static final long SHOP_ID = 1L;
+    static final int QUEUES = 4;
+
+    @State(Scope.Benchmark)
+    public static class Service {
+        @Param({"0", "1000"})
+        int queueDepth;
+
+        EmbeddedOrderService service;
+        QueueService queueService;
+        Long queueId;
+        final List<Order> spare = new ArrayList<>();
+        final AtomicInteger cursor = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            service = EmbeddedOrderService.start();
+            queueService = service.bean(QueueService.class);
+            OrderRepository orders = service.bean(OrderRepository.class);
+
+            List<Queue> queues = new ArrayList<>();
+            for (int i = 0; i < QUEUES; i++) {
+                QueueRequest request = new QueueRequest();
+                request.setShopId(SHOP_ID);
+                request.setName("bench-" + i);
+                request.setMaxSize(queueDepth * 2 + 10_000);
+                queues.add(queueService.createQueue(request));
+            }
+            queueId = queues.get(0).getId();
+
+            for (Queue queue : queues) {
+                for (Order order : orders.saveAll(newOrders(queueDepth))) {
+                    queueService.addOrderToQueue(queue.getId(), order);
+                }
+            }
+            spare.addAll(orders.saveAll(newOrders(1_000)));
+        }
+
+        Order next() {
+            return spare.get(Math.floorMod(cursor.getAndIncrement(), spare.size()));
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws IOException {
+            service.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Placed {
+        Order order;
+
+        @TearDown(Level.Invocation)
+        public void remove(Service service) {
+            service.queueService.removeOrderFromQueue(order.getId());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Waiting {
+        Order order;
+
+        @Setup(Level.Invocation)
+        public void add(Service service) {
+            order = service.next();
+            service.queueService.addOrderToQueue(service.queueId, order);
+        }
+    }
+
+    @Benchmark
+    public Object addOrderToQueue(Service service, Placed placed) {
+        placed.order = service.next();
+        return service.queueService.addOrderToQueue(service.queueId, placed.order);
+    }
+
+    @Benchmark
+    public void removeOrderFromQueue(Service service, Waiting waiting) {
+        service.queueService.removeOrderFromQueue(waiting.order.getId());
+    }
+
+    @Benchmark
+    public Object assignOrderToQueue(Service service, Placed placed) {
+        placed.order = service.next();
+        return service.queueService.assignOrderToQueue(SHOP_ID, placed.order);
+    }
+
+    static List<Order> newOrders(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setCustomerName("bench-" + i);
+            order.setOrderDetails("latte");
+            order.setOrderTime(LocalDateTime.now());
+            order.setShopId(SHOP_ID);
+            order.setStatus(Order.OrderStatus.IN_QUEUE);
+            orders.add(order);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,112 @@
+package com.digital.order.benchmarks;
+
+import com.digital.order.config.RabbitMQConfig;
+import com.digital.order.dto.OrderStatusResponse;
+import com.digital.order.dto.QueuePositionDelta;
+import com.digital.order.event.OrderCreatedEvent;
+import com.digital.order.model.Order;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding costs on the messaging paths: the order message through the AMQP converter (json or cbor, as
+ * selected by order.messaging.encoding), the STOMP payloads through Spring's Jackson message converter, and
+ * the HTTP bodies through the ObjectMapper Spring Boot builds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    @Param({"json", "cbor"})
+    String encoding;
+
+    private MessageConverter amqpConverter;
+    private MappingJackson2MessageConverter stompConverter;
+    private ObjectMapper objectMapper;
+    private Order order;
+    private OrderStatusResponse status;
+    private QueuePositionDelta delta;
+    private Message encodedEvent;
+
+    @Setup
+    public void setUp() {
+        amqpConverter = new RabbitMQConfig().messageConverter(encoding);
+        stompConverter = new MappingJackson2MessageConverter();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        order = new Order();
+        order.setId(123_456L);
+        order.setCustomerName("Alice");
+        order.setOrderDetails("Flat white, oat milk");
+        order.setOrderTime(LocalDateTime.now());
+        order.setShopId(42L);
+        order.setStatus(Order.OrderStatus.CREATED);
+
+        status = OrderStatusResponse.builder()
+                .orderId(123_456L).status("IN_QUEUE").queueId(7L).ticket(9_001L).queuePosition(12)
+                .totalCustomersWaiting(30).estimatedWaitingMinutes(18)
+                .estimatedWaitingMinutesP50(18).estimatedWaitingMinutesP90(26)
+                .build();
+        delta = QueuePositionDelta.builder()
+                .queueId(7L).removedTickets(List.of(8_990L, 8_991L, 8_995L)).queueSize(30)
+                .meanPreparationSeconds(90.0).stdDevPreparationSeconds(25.0)
+                .build();
+
+        encodedEvent = amqpConverter.toMessage(OrderCreatedEvent.of(order), new MessageProperties());
+        encodedEvent.getMessageProperties().setInferredArgumentType(OrderCreatedEvent.class);
+    }
+
+    @Benchmark
+    public Message amqpEncodeOrderCreated() {
+        return amqpConverter.toMessage(OrderCreatedEvent.of(order), new MessageProperties());
+    }
+
+    @Benchmark
+    public Object amqpDecodeOrderCreated() {
+        return amqpConverter.fromMessage(encodedEvent);
+    }
+
+    @Benchmark
+    public Object stompEncodeOrderStatus() {
+        return stompConverter.toMessage(status, SimpMessageHeaderAccessor.create().getMessageHeaders());
+    }
+
+    @Benchmark
+    public Object stompEncodeQueuePositionDelta() {
+        return stompConverter.toMessage(delta, SimpMessageHeaderAccessor.create().getMessageHeaders());
+    }
+
+    @Benchmark
+    public byte[] httpWriteOrder() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] httpWriteOrderStatus() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(status);
+    }
+}
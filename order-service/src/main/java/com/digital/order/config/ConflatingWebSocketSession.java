@@ -0,0 +1,155 @@
+package com.digital.order.config;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decouples outbound delivery from the broker threads: sends are queued per session and written by one
+ * drain task at a time, so a slow client only delays itself. While a session is behind, a newer frame for
+ * the same /topic/order.{id} replaces the queued one, since each carries the full order state. Other frames
+ * (queue deltas, replies) are never dropped. A session that falls too far behind or has a single send
+ * stuck past the time limit is closed, and the client reconnects and re-reads its status.
+ * The time from queueing a frame to having written it is recorded on the order or other frames timer.
+ */
+@Slf4j
+public class ConflatingWebSocketSession extends WebSocketSessionDecorator {
+    private static final String CONFLATED_PREFIX = "/topic/order.";
+
+    private final Executor drainExecutor;
+    private final int maxPending;
+    private final long sendTimeLimitNanos;
+    private final Timer orderFrames;
+    private final Timer otherFrames;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Object, Pending> pending = new LinkedHashMap<>();
+    private long sequence;
+    private boolean draining;
+    private volatile long sendStartNanos;
+    private volatile boolean closing;
+
+    public ConflatingWebSocketSession(WebSocketSession delegate, Executor drainExecutor, int maxPending, long sendTimeLimitMs,
+                                      Timer orderFrames, Timer otherFrames) {
+        super(delegate);
+        this.drainExecutor = drainExecutor;
+        this.maxPending = maxPending;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+        this.orderFrames = orderFrames;
+        this.otherFrames = otherFrames;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (closing) {
+            return;
+        }
+        boolean startDrain;
+        lock.lock();
+        try {
+            String destination = conflatedDestination(message);
+            Pending frame = new Pending(message, destination != null, System.nanoTime());
+            pending.put(destination != null ? destination : sequence++, frame);
+            if (pending.size() > maxPending || (draining && stuckSending())) {
+                overflow();
+                return;
+            }
+            startDrain = !draining;
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+        if (startDrain) {
+            drainExecutor.execute(this::drain);
+        }
+    }
+
+    int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            lock.lock();
+            try {
+                Iterator<Map.Entry<Object, Pending>> first = pending.entrySet().iterator();
+                if (closing || !first.hasNext()) {
+                    draining = false;
+                    return;
+                }
+                next = first.next().getValue();
+                first.remove();
+                sendStartNanos = System.nanoTime();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                getDelegate().sendMessage(next.message());
+                (next.orderFrame() ? orderFrames : otherFrames).record(System.nanoTime() - next.queuedAt(), TimeUnit.NANOSECONDS);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Send to WebSocket session {} failed, closing it", getId(), e);
+                closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+    }
+
+    private boolean stuckSending() {
+        return System.nanoTime() - sendStartNanos > sendTimeLimitNanos;
+    }
+
+    private void overflow() {
+        log.warn("WebSocket session {} is too slow ({} frames pending), closing it", getId(), pending.size());
+        closing = true;
+        pending.clear();
+        drainExecutor.execute(() -> closeQuietly(CloseStatus.SESSION_NOT_RELIABLE));
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        closing = true;
+        try {
+            getDelegate().close(status);
+        } catch (IOException e) {
+            log.debug("Failed to close WebSocket session {}", getId(), e);
+        }
+    }
+
+    private record Pending(WebSocketMessage<?> message, boolean orderFrame, long queuedAt) {
+    }
+
+    // STOMP MESSAGE frames carry their destination as a header before the first blank line
+    private static String conflatedDestination(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage text)) {
+            return null;
+        }
+        String frame = text.getPayload();
+        if (!frame.startsWith("MESSAGE\n")) {
+            return null;
+        }
+        int headersEnd = frame.indexOf("\n\n");
+        int start = frame.indexOf("\ndestination:" + CONFLATED_PREFIX);
+        if (start < 0 || (headersEnd >= 0 && start > headersEnd)) {
+            return null;
+        }
+        start += "\ndestination:".length();
+        int end = frame.indexOf('\n', start);
+        return end < 0 ? null : frame.substring(start, end);
+    }
+}
@@ -0,0 +1,72 @@
+package com.digital.order.config;
+
+import com.digital.order.event.OrderCreatedEvent;
+import com.digital.order.listener.OrderBatchMessageListener;
+import com.digital.order.listener.OrderMessageListener;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.MethodRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Registers one listener container per order partition. A single container over all partition queues
+ * would make its first consumer the active one everywhere, so each partition gets its own consumer.
+ */
+@Configuration
+public class OrderListenerConfig implements RabbitListenerConfigurer {
+    private final OrderPartitions partitions;
+    private final ObjectProvider<OrderMessageListener> singleListener;
+    private final ObjectProvider<OrderBatchMessageListener> batchListener;
+    private final SimpleRabbitListenerContainerFactory batchListenerContainerFactory;
+
+    public OrderListenerConfig(OrderPartitions partitions,
+                               ObjectProvider<OrderMessageListener> singleListener,
+                               ObjectProvider<OrderBatchMessageListener> batchListener,
+                               @Qualifier("batchListenerContainerFactory") SimpleRabbitListenerContainerFactory batchListenerContainerFactory) {
+        this.partitions = partitions;
+        this.singleListener = singleListener;
+        this.batchListener = batchListener;
+        this.batchListenerContainerFactory = batchListenerContainerFactory;
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        DefaultMessageHandlerMethodFactory handlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        handlerMethodFactory.afterPropertiesSet();
+
+        OrderBatchMessageListener batch = batchListener.getIfAvailable();
+        OrderMessageListener single = singleListener.getIfAvailable();
+        for (int partition = 0; partition < partitions.count(); partition++) {
+            MethodRabbitListenerEndpoint endpoint = new MethodRabbitListenerEndpoint();
+            endpoint.setId("order-partition-" + partition);
+            endpoint.setQueueNames(partitions.queueName(partition));
+            endpoint.setMessageHandlerMethodFactory(handlerMethodFactory);
+            if (batch != null) {
+                endpoint.setBean(batch);
+                endpoint.setMethod(method(OrderBatchMessageListener.class, "processOrders", List.class));
+                endpoint.setBatchListener(true);
+                registrar.registerEndpoint(endpoint, batchListenerContainerFactory);
+            } else if (single != null) {
+                endpoint.setBean(single);
+                endpoint.setMethod(method(OrderMessageListener.class, "processOrder", OrderCreatedEvent.class));
+                registrar.registerEndpoint(endpoint);
+            }
+        }
+    }
+
+    private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        Method method = ReflectionUtils.findMethod(type, name, parameterTypes);
+        if (method == null) {
+            throw new IllegalStateException("Listener method " + type.getSimpleName() + "." + name + " not found");
+        }
+        return method;
+    }
+}
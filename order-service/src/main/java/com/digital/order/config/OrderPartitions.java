@@ -0,0 +1,51 @@
+package com.digital.order.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.IntStream;
+
+/**
+ * Splits order messages into a fixed number of partitions by shop. Every order of a shop goes to the
+ * same partition queue, and each partition queue has a single active consumer, so a shop's orders are
+ * handled in publish order while different partitions are consumed in parallel.
+ * Changing the partition count remaps shops, so drain the queues before changing it.
+ */
+@Component
+public class OrderPartitions {
+    private static final String QUEUE_PREFIX = "order_queue.";
+    private static final String ROUTING_KEY_PREFIX = "order.partition.";
+
+    private final int count;
+
+    public OrderPartitions(@Value("${order.partitions:4}") int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("order.partitions must be at least 1");
+        }
+        this.count = count;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int partitionOf(Long shopId) {
+        return shopId == null ? 0 : Math.floorMod(Long.hashCode(shopId), count);
+    }
+
+    public String routingKey(Long shopId) {
+        return routingKey(partitionOf(shopId));
+    }
+
+    public String routingKey(int partition) {
+        return ROUTING_KEY_PREFIX + partition;
+    }
+
+    public String queueName(int partition) {
+        return QUEUE_PREFIX + partition;
+    }
+
+    public String[] queueNames() {
+        return IntStream.range(0, count).mapToObj(this::queueName).toArray(String[]::new);
+    }
+}
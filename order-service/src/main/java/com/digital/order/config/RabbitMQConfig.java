@@ -1,37 +1,111 @@
 package com.digital.order.config;
 
+import com.digital.order.service.OrderMetrics;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.RabbitTemplateCustomizer;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class RabbitMQConfig {
     
-    public static final String QUEUE_NAME = "order_queue";
     public static final String EXCHANGE_NAME = "order_exchange";
-    public static final String ROUTING_KEY = "order_routing_key";
+    // Epoch millis at publish; the AMQP timestamp property only has whole seconds
+    public static final String PUBLISHED_AT_HEADER = "x-published-at";
 
     @Bean
-    Queue queue() {
-        return new Queue(QUEUE_NAME, false);
+    DirectExchange exchange() {
+        return new DirectExchange(EXCHANGE_NAME);
     }
 
+    /**
+     * One queue per partition, bound by the partition's routing key. Single active consumer keeps
+     * exactly one consumer (across all instances) reading a partition at a time.
+     */
     @Bean
-    DirectExchange exchange() {
-        return new DirectExchange(EXCHANGE_NAME);
+    Declarables partitionQueues(OrderPartitions partitions, DirectExchange exchange) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int partition = 0; partition < partitions.count(); partition++) {
+            Queue queue = QueueBuilder.nonDurable(partitions.queueName(partition))
+                    .singleActiveConsumer()
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(exchange).with(partitions.routingKey(partition)));
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Encodes outgoing messages as JSON or CBOR (order.messaging.encoding) and decodes either by content
+     * type, so instances can switch encodings without draining the queues first.
+     */
+    @Bean
+    public MessageConverter messageConverter(@Value("${order.messaging.encoding:json}") String encoding) {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        CborMessageConverter cbor = new CborMessageConverter();
+        ContentTypeDelegatingMessageConverter converter =
+                new ContentTypeDelegatingMessageConverter("cbor".equalsIgnoreCase(encoding) ? cbor : json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(CborMessageConverter.CONTENT_TYPE, cbor);
+        return converter;
+    }
+
+    /**
+     * Stamps every published message with its send time, read back on receipt as order.broker.dwell.
+     */
+    @Bean
+    RabbitTemplateCustomizer publishedAtStamp() {
+        return template -> template.addBeforePublishPostProcessors(message -> {
+            message.getMessageProperties().setHeader(PUBLISHED_AT_HEADER, System.currentTimeMillis());
+            return message;
+        });
     }
 
+    /**
+     * Records broker dwell for every received message; Boot applies it to the default container factory.
+     */
     @Bean
-    Binding binding(Queue queue, DirectExchange exchange) {
-        return BindingBuilder.bind(queue)
-                .to(exchange)
-                .with(ROUTING_KEY);
+    ContainerCustomizer<SimpleMessageListenerContainer> brokerDwellRecorder(OrderMetrics orderMetrics) {
+        return container -> container.addAfterReceivePostProcessors(message -> {
+            if (message.getMessageProperties().getHeader(PUBLISHED_AT_HEADER) instanceof Number publishedAt) {
+                long dwell = Math.max(0, System.currentTimeMillis() - publishedAt.longValue());
+                orderMetrics.brokerDwell().record(dwell, TimeUnit.MILLISECONDS);
+            }
+            return message;
+        });
     }
 
+    /**
+     * Hands the listener up to batch-size messages at once, or whatever arrived within receive-timeout-ms.
+     */
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            ContainerCustomizer<SimpleMessageListenerContainer> brokerDwellRecorder,
+            @Value("${order.listener.batch.size:100}") int batchSize,
+            @Value("${order.listener.batch.receive-timeout-ms:50}") long receiveTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        factory.setPrefetchCount(Math.max(batchSize, 250));
+        factory.setContainerCustomizer(brokerDwellRecorder);
+        return factory;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
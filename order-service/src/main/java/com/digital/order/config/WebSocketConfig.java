@@ -1,17 +1,58 @@
 package com.digital.order.config;
 
+import com.digital.order.service.OrderMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.*;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableWebSocketMessageBroker
-public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer, DisposableBean {
+
+    @Autowired
+    private OrderMetrics orderMetrics;
+
+    private ThreadPoolTaskExecutor drainExecutor;
+
+    @Value("${order.websocket.inbound-pool-size:8}")
+    private int inboundPoolSize;
+
+    @Value("${order.websocket.outbound-pool-size:16}")
+    private int outboundPoolSize;
+
+    @Value("${order.websocket.drain-max-threads:256}")
+    private int drainMaxThreads;
+
+    @Value("${order.websocket.max-pending-frames:64}")
+    private int maxPendingFrames;
+
+    @Value("${order.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${order.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${order.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${order.websocket.subscription-cache-limit:16384}")
+    private int subscriptionCacheLimit;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
         config.setApplicationDestinationPrefixes("/app");
+        // One cached destination lookup per /topic/order.{id} subscriber
+        config.setCacheLimit(subscriptionCacheLimit);
     }
 
     @Override
@@ -19,4 +60,57 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*");
     }
-} 
\ No newline at end of file
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(inboundPoolSize).maxPoolSize(inboundPoolSize);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(outboundPoolSize).maxPoolSize(outboundPoolSize);
+    }
+
+    @Override
+    public void destroy() {
+        if (drainExecutor != null) {
+            drainExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Runs the per-session drains on a bounded pool. Not a bean, so it does not replace Boot's
+     * application task executor.
+     */
+    private ThreadPoolTaskExecutor createDrainExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ws-drain-");
+        executor.setCorePoolSize(Math.min(16, drainMaxThreads));
+        executor.setMaxPoolSize(drainMaxThreads);
+        executor.setQueueCapacity(0);
+        // Past the thread limit the broker thread sends itself, which slows delivery but loses nothing
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Outbound frames go through a {@link ConflatingWebSocketSession} per connection, so broker threads
+     * never block on a slow client. The transport limits stay as a backstop.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        drainExecutor = createDrainExecutor();
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
+                    @Override
+                    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                        super.afterConnectionEstablished(new ConflatingWebSocketSession(
+                                session, drainExecutor, maxPendingFrames, sendTimeLimitMs,
+                                orderMetrics.notify("order"), orderMetrics.notify("other")));
+                    }
+                });
+    }
+}
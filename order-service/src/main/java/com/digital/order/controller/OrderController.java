@@ -1,13 +1,26 @@
 package com.digital.order.controller;
 
+import com.digital.order.dto.BatchOrderResponse;
 import com.digital.order.dto.OrderRequest;
 import com.digital.order.dto.OrderStatusResponse;
 import com.digital.order.model.Order;
+import com.digital.order.service.OrderMetrics;
 import com.digital.order.service.OrderService;
+import com.digital.order.service.OrderStatusStreams;
+import com.digital.order.service.OrderStatusVersions;
 import com.digital.order.service.QueueService;
+import com.digital.order.service.ShopAdmission;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -15,16 +28,49 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
     private final OrderService orderService;
     private final QueueService queueService;
+    private final OrderStatusStreams orderStatusStreams;
+    private final OrderStatusVersions orderStatusVersions;
+    private final OrderMetrics orderMetrics;
+    private final ShopAdmission shopAdmission;
 
     @PostMapping
     public ResponseEntity<OrderStatusResponse> createOrder(@RequestBody OrderRequest orderRequest) {
-        Order order = orderService.createOrder(orderRequest);
+        // 429 with Retry-After before any transaction is opened when the shop's queues are full
+        shopAdmission.admit(orderRequest.getShopId());
+        Order order;
+        try {
+            // Timed here rather than in the service so the commit is included
+            order = orderMetrics.create("single").record(() -> orderService.createOrder(orderRequest));
+        } catch (RuntimeException e) {
+            shopAdmission.release(orderRequest.getShopId());
+            throw e;
+        }
         return ResponseEntity.ok(queueService.getOrderStatus(order.getId()));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchOrderResponse> createOrders(@RequestBody List<OrderRequest> orderRequests) {
+        return ResponseEntity.ok(orderMetrics.create("batch").record(() -> orderService.createOrders(orderRequests)));
+    }
+
     @GetMapping("/{orderId}/status")
-    public ResponseEntity<OrderStatusResponse> getOrderStatus(@PathVariable Long orderId) {
-        return ResponseEntity.ok(queueService.getOrderStatus(orderId));
+    public ResponseEntity<OrderStatusResponse> getOrderStatus(@PathVariable Long orderId, WebRequest request) {
+        if (request.checkNotModified(OrderStatusVersions.etag(orderStatusVersions.version(orderId)))) {
+            return null;
+        }
+        return orderStatusVersions.respond(orderId);
+    }
+
+    @GetMapping(path = "/{orderId}/status", params = "waitFor")
+    public DeferredResult<ResponseEntity<OrderStatusResponse>> awaitOrderStatus(
+            @PathVariable Long orderId,
+            @RequestParam long waitFor) {
+        return orderStatusVersions.await(orderId, waitFor);
+    }
+
+    @GetMapping(path = "/{orderId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderStatus(@PathVariable Long orderId) {
+        return orderStatusStreams.open(orderId);
     }
 
     @PutMapping("/{orderId}/cancel")
@@ -33,10 +79,20 @@ public class OrderController {
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/shop/{shopId}/cancel")
+    public ResponseEntity<Integer> cancelShopOrders(@PathVariable Long shopId) {
+        return ResponseEntity.ok(orderService.cancelShopOrders(shopId));
+    }
+
     @PutMapping("/{orderId}/status")
     public ResponseEntity<Order> updateOrderStatus(
             @PathVariable Long orderId,
             @RequestParam Order.OrderStatus status) {
+        if (status == Order.OrderStatus.IN_QUEUE) {
+            // Only queue assignment may set IN_QUEUE; set here, the order would never get a queue entry
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "IN_QUEUE is set when the order is assigned to a queue");
+        }
         return ResponseEntity.ok(orderService.updateOrderStatus(orderId, status));
     }
 } 
\ No newline at end of file
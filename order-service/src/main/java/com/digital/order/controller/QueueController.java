@@ -30,6 +30,13 @@ public class QueueController {
         return ResponseEntity.ok(queueService.getQueueInfo(queueId));
     }
 
+    @PutMapping("/{queueId}/status")
+    public ResponseEntity<Queue> updateQueueStatus(
+            @PathVariable Long queueId,
+            @RequestParam Queue.QueueStatus status) {
+        return ResponseEntity.ok(queueService.updateQueueStatus(queueId, status));
+    }
+
     @GetMapping("/shop/{shopId}")
     public ResponseEntity<List<Queue>> getShopQueues(@PathVariable Long shopId) {
         return ResponseEntity.ok(queueService.getQueuesByShopId(shopId));
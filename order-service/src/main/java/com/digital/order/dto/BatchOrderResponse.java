@@ -0,0 +1,14 @@
+package com.digital.order.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BatchOrderResponse {
+    private int accepted;
+    private int failed;
+    private List<BatchOrderResult> results;
+}
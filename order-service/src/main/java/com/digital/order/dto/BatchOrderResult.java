@@ -0,0 +1,19 @@
+package com.digital.order.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchOrderResult {
+    private int index;       // Position of the order in the request
+    private Long orderId;
+    private Outcome outcome;
+    private String error;
+
+    public enum Outcome {
+        ACCEPTED,
+        REJECTED,
+        SAVE_FAILED
+    }
+}
@@ -5,11 +5,15 @@ import lombok.Data;
 import lombok.Builder;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class OrderStatusResponse {
     private Long orderId;
     private String status;
+    private Long queueId;
+    private Long ticket;  // Immutable place in the queue; the position is its rank among waiting tickets
     private Integer queuePosition;
     private Integer totalCustomersWaiting;
-    private Integer estimatedWaitingMinutes;  // Based on average preparation time
+    private Integer estimatedWaitingMinutes;  // Median estimate, same as estimatedWaitingMinutesP50
+    private Integer estimatedWaitingMinutesP50;
+    private Integer estimatedWaitingMinutesP90;
 } 
\ No newline at end of file
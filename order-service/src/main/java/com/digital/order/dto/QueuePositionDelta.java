@@ -0,0 +1,21 @@
+package com.digital.order.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Frame sent to /topic/queue.{queueId} with every removal since the previous frame.
+ * A subscriber holding ticket t moves up by the number of removed tickets below t; its wait for
+ * position p is about p * meanPreparationSeconds (p50), plus 1.2816 * stdDevPreparationSeconds * sqrt(p) for p90.
+ */
+@Data
+@Builder
+public class QueuePositionDelta {
+    private Long queueId;
+    private List<Long> removedTickets;
+    private int queueSize;
+    private double meanPreparationSeconds;
+    private double stdDevPreparationSeconds;
+}
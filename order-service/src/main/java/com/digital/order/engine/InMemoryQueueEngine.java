@@ -0,0 +1,254 @@
+package com.digital.order.engine;
+
+import com.digital.order.event.OrderStatusChangedEvent;
+import com.digital.order.model.Queue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Authoritative queue state kept in memory (order.queue.engine=memory).
+ * <p>
+ * Each shop's queues are owned by a {@link SerialExecutor}, so all mutations of a shop are applied by a
+ * single writer without locks. Changes are handed to {@link QueueWriteBehind} and reach Postgres
+ * asynchronously; on startup the state is rebuilt from the queues and queue_orders tables.
+ * This mode assumes a single instance owns the queues.
+ */
+@Component
+@ConditionalOnProperty(name = "order.queue.engine", havingValue = "memory")
+@RequiredArgsConstructor
+@Slf4j
+public class InMemoryQueueEngine {
+    private final JdbcTemplate jdbcTemplate;
+    private final QueueWriteBehind writeBehind;
+
+    private final Map<Long, Shop> shops = new ConcurrentHashMap<>();
+    private final Map<Long, Long> queueShops = new ConcurrentHashMap<>();
+    private final Map<Long, Long> orderShops = new ConcurrentHashMap<>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+        Thread thread = new Thread(task, "queue-engine-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void rebuild() {
+        jdbcTemplate.query("SELECT id, shop_id, max_size, next_ticket, status FROM queues", rs -> {
+            QueueState queue = new QueueState(rs.getLong("id"), rs.getLong("shop_id"), rs.getInt("max_size"),
+                    Queue.QueueStatus.valueOf(rs.getString("status")), rs.getLong("next_ticket"));
+            shop(queue.shopId).queues.put(queue.id, queue);
+            queueShops.put(queue.id, queue.shopId);
+        });
+        jdbcTemplate.query("SELECT qo.queue_id, qo.order_id, qo.ticket, o.status FROM queue_orders qo " +
+                "JOIN orders o ON o.id = qo.order_id WHERE qo.cancelled_at IS NULL ORDER BY qo.queue_id, qo.ticket", rs -> {
+            Long shopId = queueShops.get(rs.getLong("queue_id"));
+            Shop shop = shops.get(shopId);
+            QueueState queue = shop.queues.get(rs.getLong("queue_id"));
+            Entry entry = new Entry(queue.id, rs.getLong("ticket"), rs.getString("status"));
+            queue.ranks.add(entry.ticket);
+            queue.nextTicket = Math.max(queue.nextTicket, entry.ticket);
+            shop.entries.put(rs.getLong("order_id"), entry);
+            orderShops.put(rs.getLong("order_id"), shopId);
+        });
+        log.info("Queue engine rebuilt {} queues and {} queued orders for {} shops",
+                queueShops.size(), orderShops.size(), shops.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public void registerQueue(Queue queue) {
+        call(queue.getShopId(), shop -> {
+            QueueState state = new QueueState(queue.getId(), queue.getShopId(), queue.getMaxSize(),
+                    queue.getStatus(), queue.getNextTicket());
+            shop.queues.put(state.id, state);
+            queueShops.put(state.id, state.shopId);
+            return state;
+        });
+    }
+
+    public Placement add(Long queueId, Long orderId) {
+        Long shopId = queueShops.get(queueId);
+        if (shopId == null) {
+            throw new RuntimeException("Queue not found");
+        }
+        return call(shopId, shop -> enqueue(shop, shop.queues.get(queueId), orderId));
+    }
+
+    public Placement assign(Long shopId, Long orderId) {
+        return call(shopId, shop -> {
+            if (shop.queues.isEmpty()) {
+                throw new RuntimeException("No queues available for shop " + shopId);
+            }
+            QueueState selected = shop.queues.values().stream()
+                    .filter(q -> q.status == Queue.QueueStatus.ACTIVE)
+                    .min(Comparator.comparingInt(q -> q.ranks.size()))
+                    .orElseThrow(() -> new RuntimeException("No active queues available"));
+            return enqueue(shop, selected, orderId);
+        });
+    }
+
+    /**
+     * Like {@link #assign}, but empty instead of an exception when no ACTIVE queue of the shop has room.
+     */
+    public Optional<Placement> tryAssign(Long shopId, Long orderId) {
+        return call(shopId, shop -> shop.queues.values().stream()
+                .filter(q -> q.status == Queue.QueueStatus.ACTIVE && q.ranks.size() < q.maxSize)
+                .min(Comparator.comparingInt(q -> q.ranks.size()))
+                .map(selected -> enqueue(shop, selected, orderId)));
+    }
+
+    public Optional<Removal> remove(Long orderId) {
+        Long shopId = orderShops.get(orderId);
+        if (shopId == null) {
+            return Optional.empty();
+        }
+        return call(shopId, shop -> {
+            Entry entry = shop.entries.remove(orderId);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            QueueState queue = shop.queues.get(entry.queueId);
+            queue.ranks.remove(entry.ticket);
+            orderShops.remove(orderId);
+            writeBehind.dequeued(queue.id, orderId, queue.ranks.size(), queue.nextTicket);
+            return Optional.of(new Removal(queue.shopId, queue.id, entry.ticket, queue.ranks.size()));
+        });
+    }
+
+    public Optional<Standing> status(Long orderId) {
+        Long shopId = orderShops.get(orderId);
+        if (shopId == null) {
+            return Optional.empty();
+        }
+        return call(shopId, shop -> Optional.ofNullable(shop.entries.get(orderId)).map(entry -> {
+            QueueState queue = shop.queues.get(entry.queueId);
+            return new Standing(queue.id, entry.ticket, entry.status, queue.ranks.rank(entry.ticket), queue.ranks.size());
+        }));
+    }
+
+    public void updateQueueStatus(Long queueId, Queue.QueueStatus status) {
+        Long shopId = queueShops.get(queueId);
+        if (shopId != null) {
+            call(shopId, shop -> shop.queues.get(queueId).status = status);
+        }
+    }
+
+    public Optional<Integer> currentSize(Long queueId) {
+        Long shopId = queueShops.get(queueId);
+        if (shopId == null) {
+            return Optional.empty();
+        }
+        return Optional.of(call(shopId, shop -> shop.queues.get(queueId).ranks.size()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Long shopId = orderShops.get(event.orderId());
+        if (shopId != null) {
+            shop(shopId).executor.execute(() -> {
+                Entry entry = shop(shopId).entries.get(event.orderId());
+                if (entry != null) {
+                    entry.status = event.status().name();
+                }
+            });
+        }
+    }
+
+    private Placement enqueue(Shop shop, QueueState queue, Long orderId) {
+        if (queue.ranks.size() >= queue.maxSize) {
+            throw new RuntimeException("Queue is full");
+        }
+        long ticket = ++queue.nextTicket;
+        queue.ranks.add(ticket);
+        shop.entries.put(orderId, new Entry(queue.id, ticket, "IN_QUEUE"));
+        orderShops.put(orderId, queue.shopId);
+        writeBehind.enqueued(queue.id, orderId, ticket, LocalDateTime.now(), queue.ranks.size(), queue.nextTicket);
+        return new Placement(queue.shopId, queue.id, ticket, queue.ranks.size());
+    }
+
+    private <T> T call(Long shopId, Function<Shop, T> task) {
+        Shop shop = shop(shopId);
+        try {
+            return CompletableFuture.supplyAsync(() -> task.apply(shop), shop.executor).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Shop shop(Long shopId) {
+        return shops.computeIfAbsent(shopId, id -> new Shop(new SerialExecutor(pool)));
+    }
+
+    public record Placement(Long shopId, Long queueId, long ticket, int position) {
+    }
+
+    public record Removal(Long shopId, Long queueId, long ticket, int queueSize) {
+    }
+
+    public record Standing(Long queueId, long ticket, String status, int position, int totalWaiting) {
+    }
+
+    private static final class Shop {
+        private final SerialExecutor executor;
+        private final Map<Long, QueueState> queues = new HashMap<>();
+        private final Map<Long, Entry> entries = new HashMap<>();
+
+        private Shop(SerialExecutor executor) {
+            this.executor = executor;
+        }
+    }
+
+    private static final class QueueState {
+        private final Long id;
+        private final Long shopId;
+        private final int maxSize;
+        private Queue.QueueStatus status;
+        private final TicketRank ranks = new TicketRank();
+        private long nextTicket;
+
+        private QueueState(Long id, Long shopId, int maxSize, Queue.QueueStatus status, long nextTicket) {
+            this.id = id;
+            this.shopId = shopId;
+            this.maxSize = maxSize;
+            this.status = status;
+            this.nextTicket = nextTicket;
+        }
+    }
+
+    private static final class Entry {
+        private final Long queueId;
+        private final long ticket;
+        private String status;
+
+        private Entry(Long queueId, long ticket, String status) {
+            this.queueId = queueId;
+            this.ticket = ticket;
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.digital.order.engine;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persists the in-memory engine's mutations to queues/queue_orders in batches.
+ * Each flush runs in one transaction; a failed batch is kept and retried first on the next flush.
+ */
+@Component
+@ConditionalOnProperty(name = "order.queue.engine", havingValue = "memory")
+@Slf4j
+public class QueueWriteBehind {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final LinkedBlockingQueue<Mutation> pending = new LinkedBlockingQueue<>();
+    private final List<Mutation> failed = new ArrayList<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public QueueWriteBehind(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${order.queue.engine.flush-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    void enqueued(Long queueId, Long orderId, long ticket, LocalDateTime entryTime, int currentSize, long nextTicket) {
+        pending.add(new Mutation(true, queueId, orderId, ticket, entryTime, currentSize, nextTicket));
+    }
+
+    void dequeued(Long queueId, Long orderId, int currentSize, long nextTicket) {
+        pending.add(new Mutation(false, queueId, orderId, 0, null, currentSize, nextTicket));
+    }
+
+    int backlog() {
+        return pending.size() + failed.size();
+    }
+
+    @Scheduled(fixedDelayString = "${order.queue.engine.flush-interval-ms:50}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!failed.isEmpty() || !pending.isEmpty()) {
+                List<Mutation> batch = new ArrayList<>(failed);
+                failed.clear();
+                pending.drainTo(batch, Math.max(0, batchSize - batch.size()));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> write(batch));
+                } catch (RuntimeException e) {
+                    log.error("Failed to persist {} queue mutations, will retry", batch.size(), e);
+                    failed.addAll(batch);
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (backlog() > 0) {
+            log.error("{} queue mutations could not be persisted before shutdown", backlog());
+        }
+    }
+
+    private void write(List<Mutation> batch) {
+        // Deletes go first; an enqueue that is undone later in the same batch is never inserted
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        Map<Long, Mutation> lastPerQueue = new LinkedHashMap<>();
+        Set<Long> removedLater = new HashSet<>();
+
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            Mutation m = batch.get(i);
+            lastPerQueue.putIfAbsent(m.queueId(), m);
+            if (m.enqueue()) {
+                if (!removedLater.contains(m.orderId())) {
+                    inserts.add(new Object[]{m.queueId(), m.orderId(), m.ticket(), Timestamp.valueOf(m.entryTime())});
+                }
+            } else {
+                removedLater.add(m.orderId());
+                deletes.add(new Object[]{m.orderId()});
+            }
+        }
+
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM queue_orders WHERE order_id = ?", deletes);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO queue_orders (queue_id, order_id, ticket, entry_time) VALUES (?, ?, ?, ?)", inserts);
+        }
+        List<Object[]> counters = lastPerQueue.values().stream()
+                .map(m -> new Object[]{m.currentSize(), m.nextTicket(), m.queueId()})
+                .toList();
+        jdbcTemplate.batchUpdate("UPDATE queues SET current_size = ?, next_ticket = ?, updated_at = now() WHERE id = ?", counters);
+    }
+
+    private record Mutation(boolean enqueue, Long queueId, Long orderId, long ticket, LocalDateTime entryTime,
+                            int currentSize, long nextTicket) {
+    }
+}
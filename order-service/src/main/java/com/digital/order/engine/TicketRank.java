@@ -0,0 +1,127 @@
+package com.digital.order.engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Fenwick tree over the live tickets of one queue. Tickets are only ever appended in
+ * increasing order, so each one takes the next slot and slots stay sorted by ticket; a
+ * ticket is found by binary search over its slot. When the slots run out the live tickets
+ * are compacted into a fresh array of twice their number, so memory follows the number of
+ * waiting orders rather than the ticket span between the oldest and the newest of them.
+ * Not thread-safe: owned by the shop's single writer.
+ */
+final class TicketRank {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] tickets = new long[MIN_CAPACITY]; // ticket per slot, increasing; removed slots keep theirs
+    private int[] tree = new int[MIN_CAPACITY + 1];
+    private BitSet live = new BitSet(MIN_CAPACITY);
+    private int used;
+    private int size;
+
+    void add(long ticket) {
+        int slot = slotOf(ticket);
+        if (slot >= 0) {
+            if (!live.get(slot)) {
+                live.set(slot);
+                update(slot + 1, 1);
+                size++;
+            }
+            return;
+        }
+        if (used == tickets.length || (used > 0 && ticket < tickets[used - 1])) {
+            rebuild(ticket);
+            return;
+        }
+        tickets[used] = ticket;
+        live.set(used);
+        update(used + 1, 1);
+        used++;
+        size++;
+    }
+
+    void remove(long ticket) {
+        int slot = slotOf(ticket);
+        if (slot >= 0 && live.get(slot)) {
+            live.clear(slot);
+            update(slot + 1, -1);
+            size--;
+        }
+    }
+
+    /**
+     * Number of live tickets less than or equal to the given one, i.e. its 1-based position.
+     */
+    int rank(long ticket) {
+        int sum = 0;
+        for (int i = slotsUpTo(ticket); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return tickets.length;
+    }
+
+    private int slotOf(long ticket) {
+        int slot = Arrays.binarySearch(tickets, 0, used, ticket);
+        return slot >= 0 ? slot : -1;
+    }
+
+    /**
+     * Number of slots holding a ticket less than or equal to the given one.
+     */
+    private int slotsUpTo(long ticket) {
+        int slot = Arrays.binarySearch(tickets, 0, used, ticket);
+        return slot >= 0 ? slot + 1 : -slot - 1;
+    }
+
+    private void update(int index, int delta) {
+        for (int i = index; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Compacts the live tickets plus the incoming one (normally the newest, merged in place if
+     * not) into slots sized at twice the live count, and rebuilds the tree in linear time.
+     */
+    private void rebuild(long incoming) {
+        int capacity = Math.max(MIN_CAPACITY, (size + 1) * 2);
+        long[] compacted = new long[capacity];
+        int count = 0;
+        boolean placed = false;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            if (!placed && incoming < tickets[slot]) {
+                compacted[count++] = incoming;
+                placed = true;
+            }
+            compacted[count++] = tickets[slot];
+        }
+        if (!placed) {
+            compacted[count++] = incoming;
+        }
+
+        tickets = compacted;
+        used = count;
+        size = count;
+        live = new BitSet(capacity);
+        live.set(0, count);
+        tree = new int[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            if (i <= count) {
+                tree[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.digital.order.event;
+
+import com.digital.order.model.Order;
+import com.fasterxml.jackson.annotation.JsonAlias;
+
+import java.time.LocalDateTime;
+
+/**
+ * Broker message announcing a new order; carries only what the listener needs to queue it.
+ * Bump {@link #VERSION} on incompatible changes. The aliases still accept the full Order JSON
+ * published before this event existed.
+ */
+public record OrderCreatedEvent(int version,
+                                @JsonAlias("id") Long orderId,
+                                Long shopId,
+                                @JsonAlias("orderTime") LocalDateTime createdAt,
+                                Order.OrderStatus status) {
+    public static final int VERSION = 1;
+
+    public static OrderCreatedEvent of(Order order) {
+        return new OrderCreatedEvent(VERSION, order.getId(), order.getShopId(), order.getOrderTime(), order.getStatus());
+    }
+}
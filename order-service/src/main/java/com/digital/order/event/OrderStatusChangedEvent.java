@@ -0,0 +1,9 @@
+package com.digital.order.event;
+
+import com.digital.order.model.Order;
+
+/**
+ * Published by OrderService after an order's status has been written.
+ */
+public record OrderStatusChangedEvent(Long orderId, Order.OrderStatus status) {
+}
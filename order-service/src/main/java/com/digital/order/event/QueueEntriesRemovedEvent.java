@@ -0,0 +1,10 @@
+package com.digital.order.event;
+
+import java.util.List;
+
+/**
+ * Published by QueueService when several orders have left one queue in a single statement
+ * (a shop's cancelled orders). queueSize is the queue's size right after the removals.
+ */
+public record QueueEntriesRemovedEvent(Long shopId, Long queueId, List<Long> tickets, int queueSize) {
+}
@@ -0,0 +1,8 @@
+package com.digital.order.event;
+
+/**
+ * Published by QueueService when an order has taken a ticket in a queue.
+ * queueSize is the queue's size right after the append.
+ */
+public record QueueEntryAddedEvent(Long shopId, Long queueId, Long orderId, long ticket, int queueSize) {
+}
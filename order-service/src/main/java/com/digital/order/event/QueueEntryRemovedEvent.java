@@ -0,0 +1,8 @@
+package com.digital.order.event;
+
+/**
+ * Published by QueueService when an order has left its queue.
+ * queueSize is the queue's size right after the removal.
+ */
+public record QueueEntryRemovedEvent(Long shopId, Long queueId, Long orderId, long ticket, int queueSize) {
+}
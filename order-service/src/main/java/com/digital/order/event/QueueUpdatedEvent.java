@@ -0,0 +1,14 @@
+package com.digital.order.event;
+
+import com.digital.order.model.Queue;
+
+/**
+ * Published by QueueService when a queue is created or its status changes.
+ */
+public record QueueUpdatedEvent(Long shopId, Long queueId, Queue.QueueStatus status, int maxSize, int currentSize) {
+
+    public static QueueUpdatedEvent of(Queue queue) {
+        return new QueueUpdatedEvent(queue.getShopId(), queue.getId(), queue.getStatus(),
+                queue.getMaxSize(), queue.getCurrentSize());
+    }
+}
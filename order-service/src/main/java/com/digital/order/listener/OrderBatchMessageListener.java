@@ -0,0 +1,70 @@
+package com.digital.order.listener;
+
+import com.digital.order.event.OrderCreatedEvent;
+import com.digital.order.model.Order;
+import com.digital.order.service.OrderMetrics;
+import com.digital.order.service.OrderService;
+import com.digital.order.service.QueueService;
+import io.micrometer.core.instrument.Timer;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch counterpart of {@link OrderMessageListener}: one transaction, one status UPDATE and one
+ * queue assignment pass per shop for the whole batch instead of per message. Registered on every
+ * partition queue by {@link com.digital.order.config.OrderListenerConfig} with the batching container factory.
+ */
+@Component
+@ConditionalOnProperty(name = "order.listener.batch.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderBatchMessageListener {
+    private final OrderService orderService;
+    private final QueueService queueService;
+    private final OrderMetrics orderMetrics;
+
+    @Transactional
+    public void processOrders(List<OrderCreatedEvent> events) {
+        log.info("Received batch of {} orders from queue", events.size());
+        Timer.Sample sample = Timer.start();
+
+        try {
+            List<Long> orderIds = events.stream().map(OrderCreatedEvent::orderId).distinct().toList();
+            List<Order> moved = orderService.markOrdersInQueue(orderIds);
+
+            // Keep arrival order within each shop so tickets follow the order the messages were published in
+            Map<Long, Integer> arrival = new HashMap<>();
+            orderIds.forEach(id -> arrival.put(id, arrival.size()));
+            Map<Long, List<Order>> byShop = new LinkedHashMap<>();
+            moved.stream()
+                    .sorted(Comparator.comparing(order -> arrival.get(order.getId())))
+                    .forEach(order -> {
+                        if (order.getShopId() == null) {
+                            log.error("Cannot assign order {} to queue: shopId is null", order.getId());
+                        } else {
+                            byShop.computeIfAbsent(order.getShopId(), shopId -> new ArrayList<>()).add(order);
+                        }
+                    });
+
+            byShop.forEach((shopId, shopOrders) -> {
+                int placed = orderMetrics.queueAssign("batch")
+                        .record(() -> queueService.assignOrdersToQueues(shopId, shopOrders)).size();
+                log.info("Assigned {} of {} orders to queues for shop {}", placed, shopOrders.size(), shopId);
+            });
+        } catch (Exception e) {
+            log.error("Order batch processing failed for {} orders", events.size(), e);
+        } finally {
+            sample.stop(orderMetrics.listenerProcess("batch"));
+        }
+    }
+}
@@ -1,45 +1,50 @@
 package com.digital.order.listener;
 
+import com.digital.order.event.OrderCreatedEvent;
 import com.digital.order.model.Order;
+import com.digital.order.service.OrderMetrics;
 import com.digital.order.service.OrderService;
 import com.digital.order.service.QueueService;
-import com.digital.order.config.RabbitMQConfig;
-import com.digital.order.repository.OrderRepository;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
 
+/**
+ * Handles one order message per call. Registered on every partition queue by {@link com.digital.order.config.OrderListenerConfig}.
+ */
 @Component
+@ConditionalOnProperty(name = "order.listener.batch.enabled", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class OrderMessageListener {
     private final OrderService orderService;
     private final QueueService queueService;
-    private final OrderRepository orderRepository;
+    private final OrderMetrics orderMetrics;
 
-    @RabbitListener(queues = RabbitMQConfig.QUEUE_NAME)
     @Transactional
-    public void processOrder(Order order) {
-        log.info("Received order from queue: {}", order.getId());
+    public void processOrder(OrderCreatedEvent event) {
+        log.info("Received order from queue: {}", event.orderId());
+        Timer.Sample sample = Timer.start();
         
         try {
-            // Update order status to IN_QUEUE
-            orderService.updateOrderStatus(order.getId(), Order.OrderStatus.IN_QUEUE);
-            log.info("Order {} status updated to IN_QUEUE", order.getId());
-            
-            // Get the full order with all details
-            Order fullOrder = orderRepository.findById(order.getId())
-                    .orElseThrow(() -> new RuntimeException("Order not found"));
+            // Update order status to IN_QUEUE; the updated entity is reused for the queue entry
+            Order order = orderService.updateOrderStatus(event.orderId(), Order.OrderStatus.IN_QUEUE);
+            log.info("Order {} status updated to IN_QUEUE", event.orderId());
             
             // Automatically assign to queue based on shop
             try {
-                // Use the shopId from the order
-                Long shopId = fullOrder.getShopId();
+                // Use the shopId carried by the event
+                Long shopId = event.shopId();
                 if (shopId != null) {
-                    queueService.assignOrderToQueue(shopId, fullOrder);
-                    log.info("Order assigned to queue for shop {}", shopId);
+                    // A shop without room puts the order on its waitlist rather than failing the assignment
+                    boolean placed = orderMetrics.queueAssign("single")
+                            .record(() -> queueService.assignOrWaitlist(shopId, order)).isPresent();
+                    log.info("Order {} for shop {}", placed ? "assigned to queue" : "waitlisted", shopId);
                 } else {
                     log.error("Cannot assign order to queue: shopId is null");
                 }
@@ -47,9 +52,18 @@ public class OrderMessageListener {
                 log.error("Failed to assign order to queue", e);
                 // Handle exception appropriately
             }
+        } catch (ResponseStatusException e) {
+            if (e.getStatusCode() == HttpStatus.CONFLICT) {
+                // Redelivered or duplicate message: only assignment sets IN_QUEUE (the REST endpoint refuses it),
+                // so the order was already queued, waitlisted or cancelled
+                log.info("Order {} was already handled, acknowledging duplicate message: {}", event.orderId(), e.getReason());
+            } else {
+                log.error("Order processing failed for order: {}", event.orderId(), e);
+            }
         } catch (Exception e) {
-            log.error("Order processing interrupted for order: {}", order.getId(), e);
-            Thread.currentThread().interrupt();
+            log.error("Order processing failed for order: {}", event.orderId(), e);
+        } finally {
+            sample.stop(orderMetrics.listenerProcess("single"));
         }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -4,6 +4,10 @@ import jakarta.persistence.*;
 import lombok.Data;
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
 
 @Entity
 @Table(name = "orders")
@@ -11,7 +15,8 @@ import java.time.LocalDateTime;
 public class Order implements Serializable {
     private static final long serialVersionUID = 1L;
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id")
+    @SequenceGenerator(name = "orders_id", sequenceName = "orders_seq", allocationSize = 50) // pooled: one nextval per 50 ids
     private Long id;
     
     private String customerName;
@@ -28,6 +33,35 @@ public class Order implements Serializable {
         IN_QUEUE,
         PROCESSING,
         READY,
-        CANCELLED
+        CANCELLED;
+
+        // Allowed transitions; READY and CANCELLED are terminal
+        private static final Map<OrderStatus, Set<OrderStatus>> NEXT = new EnumMap<>(Map.of(
+                CREATED, EnumSet.of(IN_QUEUE, CANCELLED),
+                IN_QUEUE, EnumSet.of(PROCESSING, CANCELLED),
+                PROCESSING, EnumSet.of(READY, CANCELLED),
+                READY, EnumSet.noneOf(OrderStatus.class),
+                CANCELLED, EnumSet.noneOf(OrderStatus.class)));
+
+        public boolean canTransitionTo(OrderStatus next) {
+            return NEXT.get(this).contains(next);
+        }
+
+        public boolean isTerminal() {
+            return NEXT.get(this).isEmpty();
+        }
+
+        /**
+         * Statuses an order may be in for a move to {@code target} to be accepted.
+         */
+        public static Set<OrderStatus> sourcesOf(OrderStatus target) {
+            Set<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+            NEXT.forEach((from, to) -> {
+                if (to.contains(target)) {
+                    sources.add(from);
+                }
+            });
+            return sources;
+        }
     }
 } 
\ No newline at end of file
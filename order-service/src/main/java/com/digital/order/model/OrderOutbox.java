@@ -0,0 +1,30 @@
+package com.digital.order.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "order_outbox")
+@Data
+public class OrderOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_id")
+    @SequenceGenerator(name = "order_outbox_id", sequenceName = "order_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    private Long orderId;
+    private String exchange;
+    private String routingKey;
+
+    // Already converted by the broker's message converter, so the relay publishes the bytes as-is
+    private String contentType;
+    private byte[] payload;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,26 @@
+package com.digital.order.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "order_waitlist")
+@Data
+public class OrderWaitlist {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_waitlist_id")
+    @SequenceGenerator(name = "order_waitlist_id", sequenceName = "order_waitlist_seq", allocationSize = 50)
+    private Long id;
+
+    private Long orderId;
+    private Long shopId;
+
+    // Admission order within a shop; ids come from pooled blocks and are not monotonic across instances
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -9,13 +9,19 @@ import java.time.LocalDateTime;
 @Data
 public class Queue {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "queues_id")
+    @SequenceGenerator(name = "queues_id", sequenceName = "queues_seq", allocationSize = 50)
     private Long id;
     
     private Long shopId;
     private String name;
     private Integer maxSize;
+
+    // Counters are only changed by the atomic statements in the repositories, never by entity updates
+    @Column(updatable = false)
     private Integer currentSize;
+    @Column(updatable = false)
+    private Long nextTicket;
     
     @Enumerated(EnumType.STRING)
     private QueueStatus status;
@@ -9,7 +9,8 @@ import java.time.LocalDateTime;
 @Data
 public class QueueOrder {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "queue_orders_id")
+    @SequenceGenerator(name = "queue_orders_id", sequenceName = "queue_orders_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne
@@ -20,8 +21,15 @@ public class QueueOrder {
     @JoinColumn(name = "order_id")
     private Order order;
     
+    private Long ticket;
+
+    @Transient // rank of the ticket within the queue, filled in on read
     private Integer position;
+
     private LocalDateTime entryTime;
+
+    // Set when the order is cancelled; the row no longer counts in ranks and is deleted later by QueueCompactor
+    private LocalDateTime cancelledAt;
     
     @PrePersist
     protected void onCreate() {
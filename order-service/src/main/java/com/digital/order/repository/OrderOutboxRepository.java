@@ -0,0 +1,24 @@
+package com.digital.order.repository;
+
+import com.digital.order.model.OrderOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutbox, Long> {
+
+    /**
+     * Claims every routing key no other relay holds with a transaction-scoped advisory lock, then locks
+     * the oldest messages of those keys. A partition is published by one relay at a time, so several
+     * instances can drain the outbox without publishing the same message twice or reordering a shop's orders.
+     */
+    @Query(value = "WITH claimed AS MATERIALIZED (SELECT routing_key FROM (SELECT DISTINCT routing_key FROM order_outbox) keys " +
+            "WHERE pg_try_advisory_xact_lock(hashtext('order_outbox'), hashtext(routing_key))) " +
+            "SELECT o.* FROM order_outbox o WHERE o.routing_key IN (SELECT routing_key FROM claimed) " +
+            "ORDER BY o.id LIMIT :limit FOR UPDATE OF o", nativeQuery = true)
+    List<OrderOutbox> lockNextBatch(@Param("limit") int limit);
+}
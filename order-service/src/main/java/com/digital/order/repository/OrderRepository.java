@@ -2,8 +2,49 @@ package com.digital.order.repository;
 
 import com.digital.order.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-} 
\ No newline at end of file
+
+    /**
+     * Moves every still-CREATED order of the batch to IN_QUEUE in one statement and returns the updated rows;
+     * orders cancelled in the meantime or already handled by an earlier delivery are left alone.
+     * CREATED is the only source of IN_QUEUE in {@link Order.OrderStatus}'s transition table.
+     */
+    @Transactional
+    @Query(value = "UPDATE orders SET status = 'IN_QUEUE' WHERE id IN (:orderIds) AND status = 'CREATED' RETURNING *",
+            nativeQuery = true)
+    List<Order> markInQueue(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Applies a status change in one statement, guarded by the transition table: the row is only updated
+     * when its current status may move to {@code target}. Returns empty when the order does not exist or
+     * the transition is not allowed.
+     */
+    default Optional<Order> transition(Long orderId, Order.OrderStatus target) {
+        List<String> allowed = Order.OrderStatus.sourcesOf(target).stream().map(Enum::name).toList();
+        return allowed.isEmpty() ? Optional.empty() : transition(orderId, target.name(), allowed);
+    }
+
+    @Transactional
+    @Query(value = "UPDATE orders SET status = :status WHERE id = :orderId AND status IN (:allowed) RETURNING *",
+            nativeQuery = true)
+    Optional<Order> transition(@Param("orderId") Long orderId, @Param("status") String status,
+                               @Param("allowed") Collection<String> allowed);
+
+    /**
+     * Cancels all of the shop's orders that are not being prepared yet, in one statement.
+     */
+    @Transactional
+    @Query(value = "UPDATE orders SET status = 'CANCELLED' WHERE shop_id = :shopId AND status IN ('CREATED', 'IN_QUEUE') RETURNING *",
+            nativeQuery = true)
+    List<Order> cancelOpenOrders(@Param("shopId") Long shopId);
+}
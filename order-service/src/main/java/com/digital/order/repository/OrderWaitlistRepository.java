@@ -0,0 +1,27 @@
+package com.digital.order.repository;
+
+import com.digital.order.model.OrderWaitlist;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderWaitlistRepository extends JpaRepository<OrderWaitlist, Long> {
+
+    /**
+     * Locks the shop's longest-waiting order; an entry another instance is admitting is skipped.
+     */
+    @Query(value = "SELECT * FROM order_waitlist WHERE shop_id = :shopId ORDER BY created_at, id LIMIT 1 " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<OrderWaitlist> lockHead(@Param("shopId") Long shopId);
+
+    @Transactional
+    @Query(value = "DELETE FROM order_waitlist w USING orders o " +
+            "WHERE w.shop_id = :shopId AND o.id = w.order_id AND o.status = 'CANCELLED' RETURNING w.id", nativeQuery = true)
+    List<Long> deleteCancelled(@Param("shopId") Long shopId);
+}
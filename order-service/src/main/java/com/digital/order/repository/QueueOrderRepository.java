@@ -2,9 +2,110 @@ package com.digital.order.repository;
 
 import com.digital.order.model.QueueOrder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.List;
+import java.util.Optional;
 
 public interface QueueOrderRepository extends JpaRepository<QueueOrder, Long> {
-    List<QueueOrder> findByQueueIdOrderByPositionAsc(Long queueId);
+    List<QueueOrder> findByQueueIdAndCancelledAtIsNullOrderByTicketAsc(Long queueId);
     QueueOrder findByOrderId(Long orderId);
-} 
\ No newline at end of file
+
+    @Query("SELECT qo.queue.id FROM QueueOrder qo WHERE qo.order.id = :orderId")
+    Optional<Long> findQueueIdByOrderId(@Param("orderId") Long orderId);
+
+    /**
+     * Loads everything the status endpoint needs in one round trip. The position is the
+     * rank of the order's ticket among the queue's live entries, counted on the partial (queue_id, ticket) index.
+     * That count is a range scan over the entries ahead, so it costs O(position) rather than O(log n); nobody
+     * behind is read, and no row is rewritten when an entry leaves. The memory engine ranks in O(log n) instead.
+     * An order without a live entry (waitlisted, cancelled, compacted away) still comes back with its own status
+     * and a null queueId; empty means the order does not exist.
+     */
+    @Query(value = "SELECT qo.queue_id AS queueId, qo.ticket AS ticket, o.status AS status, q.current_size AS totalWaiting, " +
+            "(SELECT count(*) FROM queue_orders ahead WHERE ahead.queue_id = qo.queue_id AND ahead.ticket <= qo.ticket " +
+            "AND ahead.cancelled_at IS NULL) AS position " +
+            "FROM orders o " +
+            "LEFT JOIN queue_orders qo ON qo.order_id = o.id AND qo.cancelled_at IS NULL " +
+            "LEFT JOIN queues q ON q.id = qo.queue_id " +
+            "WHERE o.id = :orderId", nativeQuery = true)
+    Optional<QueuedOrderStatus> findStatusByOrderId(@Param("orderId") Long orderId);
+
+    /**
+     * Deletes the order's live entry and releases its slot in one statement; nobody else's row is touched.
+     * A tombstone already gave its slot back, so it is left for the compactor.
+     */
+    @Transactional
+    @Query(value = "WITH removed AS (DELETE FROM queue_orders WHERE order_id = :orderId AND cancelled_at IS NULL " +
+            "RETURNING queue_id, ticket) " +
+            "UPDATE queues q SET current_size = q.current_size - 1, updated_at = now() " +
+            "FROM removed r WHERE q.id = r.queue_id " +
+            "RETURNING q.shop_id AS shopId, q.id AS queueId, r.ticket AS ticket, q.current_size AS queueSize", nativeQuery = true)
+    Optional<RemovedEntry> removeByOrderId(@Param("orderId") Long orderId);
+
+    /**
+     * Tombstones the order's entry and releases its slot: one row and its queue are updated, and the
+     * entries behind move up because ranks skip tombstones. The row itself is left to the compactor.
+     */
+    @Transactional
+    @Query(value = "WITH tombstoned AS (UPDATE queue_orders SET cancelled_at = now() " +
+            "WHERE order_id = :orderId AND cancelled_at IS NULL RETURNING queue_id, ticket) " +
+            "UPDATE queues q SET current_size = q.current_size - 1, updated_at = now() " +
+            "FROM tombstoned t WHERE q.id = t.queue_id " +
+            "RETURNING q.shop_id AS shopId, q.id AS queueId, t.ticket AS ticket, q.current_size AS queueSize", nativeQuery = true)
+    Optional<RemovedEntry> tombstoneByOrderId(@Param("orderId") Long orderId);
+
+    /**
+     * Tombstones the live entries of the shop's cancelled orders and releases their slots with one
+     * UPDATE per affected queue, all in one statement. Returns one row per tombstoned ticket, ordered by
+     * queue and ticket, each with its queue as it is afterwards.
+     */
+    @Transactional
+    @Query(value = "WITH tombstoned AS (UPDATE queue_orders qo SET cancelled_at = now() " +
+            "FROM queues q, orders o " +
+            "WHERE q.id = qo.queue_id AND q.shop_id = :shopId AND o.id = qo.order_id AND o.status = 'CANCELLED' " +
+            "AND qo.cancelled_at IS NULL RETURNING qo.queue_id, qo.ticket), " +
+            "released AS (SELECT queue_id, count(*) AS entries FROM tombstoned GROUP BY queue_id), " +
+            "updated AS (UPDATE queues q SET current_size = q.current_size - r.entries, updated_at = now() " +
+            "FROM released r WHERE q.id = r.queue_id " +
+            "RETURNING q.shop_id, q.id, q.status, q.max_size, q.current_size) " +
+            "SELECT u.shop_id AS shopId, u.id AS queueId, u.status AS status, u.max_size AS maxSize, " +
+            "u.current_size AS currentSize, t.ticket AS ticket " +
+            "FROM updated u JOIN tombstoned t ON t.queue_id = u.id ORDER BY u.id, t.ticket", nativeQuery = true)
+    List<ReleasedEntry> tombstoneCancelledInShop(@Param("shopId") Long shopId);
+
+    /**
+     * Physically deletes up to {@code limit} tombstones; rows another compactor holds are skipped.
+     */
+    @Transactional
+    @Query(value = "DELETE FROM queue_orders WHERE id IN (" +
+            "SELECT id FROM queue_orders WHERE cancelled_at IS NOT NULL ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id", nativeQuery = true)
+    List<Long> deleteTombstones(@Param("limit") int limit);
+
+    interface QueuedOrderStatus {
+        Long getQueueId();
+        Long getTicket();
+        String getStatus();
+        Integer getTotalWaiting();
+        Long getPosition();
+    }
+
+    interface ReleasedEntry {
+        Long getShopId();
+        Long getQueueId();
+        String getStatus();
+        Integer getMaxSize();
+        Integer getCurrentSize();
+        Long getTicket();
+    }
+
+    interface RemovedEntry {
+        Long getShopId();
+        Long getQueueId();
+        Long getTicket();
+        Integer getQueueSize();
+    }
+}
@@ -2,9 +2,67 @@ package com.digital.order.repository;
 
 import com.digital.order.model.Queue;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface QueueRepository extends JpaRepository<Queue, Long> {
     List<Queue> findByShopId(Long shopId);
-} 
\ No newline at end of file
+
+    List<Queue> findByStatus(Queue.QueueStatus status);
+
+    /**
+     * Atomically reserves a slot in the queue and hands out the next ticket.
+     * Returns empty when the queue does not exist or is already full.
+     */
+    @Transactional
+    @Query(value = "UPDATE queues SET next_ticket = next_ticket + 1, current_size = current_size + 1, updated_at = now() " +
+            "WHERE id = :queueId AND current_size < max_size " +
+            "RETURNING shop_id AS shopId, id AS queueId, next_ticket AS ticket, current_size AS position", nativeQuery = true)
+    Optional<TicketClaim> claimTicket(@Param("queueId") Long queueId);
+
+    /**
+     * Picks the shop's shortest ACTIVE queue with room that no other transaction is appending to,
+     * and claims a ticket in it, in one statement. Returns empty when every such queue is busy or full.
+     */
+    @Transactional
+    @Query(value = "WITH candidate AS (" +
+            "SELECT id FROM queues WHERE shop_id = :shopId AND status = 'ACTIVE' AND current_size < max_size " +
+            "ORDER BY current_size, id LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "UPDATE queues q SET next_ticket = q.next_ticket + 1, current_size = q.current_size + 1, updated_at = now() " +
+            "FROM candidate c WHERE q.id = c.id " +
+            "RETURNING q.shop_id AS shopId, q.id AS queueId, q.next_ticket AS ticket, q.current_size AS position", nativeQuery = true)
+    Optional<TicketClaim> claimTicketInShop(@Param("shopId") Long shopId);
+
+    /**
+     * Claims up to {@code count} consecutive tickets in one statement, as many as the queue has room for.
+     * The block is {@code lastTicket - claimed + 1 .. lastTicket}; returns empty when the queue is full.
+     */
+    @Transactional
+    @Query(value = "WITH candidate AS (" +
+            "SELECT id, LEAST(:count, max_size - current_size) AS claimed FROM queues " +
+            "WHERE id = :queueId AND current_size < max_size FOR UPDATE) " +
+            "UPDATE queues q SET next_ticket = q.next_ticket + c.claimed, current_size = q.current_size + c.claimed, updated_at = now() " +
+            "FROM candidate c WHERE q.id = c.id " +
+            "RETURNING q.shop_id AS shopId, q.id AS queueId, q.next_ticket AS lastTicket, q.current_size AS queueSize, c.claimed AS claimed",
+            nativeQuery = true)
+    Optional<TicketBlock> claimTickets(@Param("queueId") Long queueId, @Param("count") int count);
+
+    interface TicketClaim {
+        Long getShopId();
+        Long getQueueId();
+        Long getTicket();
+        Integer getPosition();
+    }
+
+    interface TicketBlock {
+        Long getShopId();
+        Long getQueueId();
+        Long getLastTicket();
+        Integer getQueueSize();
+        Integer getClaimed();
+    }
+}
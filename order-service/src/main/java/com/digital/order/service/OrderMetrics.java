@@ -0,0 +1,82 @@
+package com.digital.order.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Timers for each stage an order goes through, from the HTTP create to the WebSocket frame reaching the
+ * client, published as percentile histograms under order.*. Tags only take a handful of fixed values
+ * (mode, outcome, kind), so every timer has a small, bounded number of series.
+ */
+@Component
+public class OrderMetrics {
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration STAGE_MAX = Duration.ofMinutes(1);
+    private static final Duration LIFECYCLE_MAX = Duration.ofHours(2);
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public OrderMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /** POST /api/orders and /api/orders/batch, mode=single|batch. */
+    public Timer create(String mode) {
+        return timer("order.create", "Order intake including the transaction commit", STAGE_MAX, "mode", mode);
+    }
+
+    /** One outbox round: publishing a batch and awaiting its confirms. */
+    public Timer outboxPublish() {
+        return timer("order.outbox.publish", "Outbox batch publish and confirm", STAGE_MAX, null, null);
+    }
+
+    /** Age of an outbox row when the broker confirmed it: how long an order waited to be published. */
+    public Timer outboxLag() {
+        return timer("order.outbox.lag", "Outbox row creation to broker confirm", STAGE_MAX, null, null);
+    }
+
+    /** Publish to receive, from the x-published-at header stamped on send; includes clock skew between instances. */
+    public Timer brokerDwell() {
+        return timer("order.broker.dwell", "Time an order message spent in the broker", STAGE_MAX, null, null);
+    }
+
+    /** One listener call, mode=single|batch. */
+    public Timer listenerProcess(String mode) {
+        return timer("order.listener.process", "Order message handling", STAGE_MAX, "mode", mode);
+    }
+
+    /** Placing orders into queues, mode=single|batch. */
+    public Timer queueAssign(String mode) {
+        return timer("order.queue.assign", "Queue assignment", STAGE_MAX, "mode", mode);
+    }
+
+    /** Frame queued for a WebSocket session until written to it, kind=order|other. */
+    public Timer notify(String kind) {
+        return timer("order.notify", "WebSocket frame queueing and write", STAGE_MAX, "kind", kind);
+    }
+
+    /** Order creation until it reaches a terminal status, outcome=ready|cancelled. */
+    public Timer lifecycle(String outcome) {
+        return timer("order.lifecycle", "Order creation to READY or CANCELLED", LIFECYCLE_MAX, "outcome", outcome);
+    }
+
+    private Timer timer(String name, String description, Duration maxExpected, String tagKey, String tagValue) {
+        return timers.computeIfAbsent(tagKey == null ? name : name + '|' + tagValue, key -> {
+            Timer.Builder builder = Timer.builder(name)
+                    .description(description)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(maxExpected);
+            if (tagKey != null) {
+                builder.tag(tagKey, tagValue);
+            }
+            return builder.register(registry);
+        });
+    }
+}
@@ -0,0 +1,145 @@
+package com.digital.order.service;
+
+import com.digital.order.model.OrderOutbox;
+import com.digital.order.repository.OrderOutboxRepository;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drains order_outbox to RabbitMQ. Each round claims whole partitions (routing keys) so that no other
+ * relay publishes them at the same time, locks their oldest rows, publishes them over one channel,
+ * waits for the publisher confirms and deletes the confirmed rows in the same transaction. Within a
+ * partition only the rows before the first unconfirmed one are deleted: that row and everything after
+ * it are published again, in order, on the next round, so delivery is at-least-once and FIFO per shop.
+ */
+@Component
+@Slf4j
+public class OrderOutboxRelay {
+    private final OrderOutboxRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderMetrics orderMetrics;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+
+    private final ReentrantLock relayLock = new ReentrantLock();
+
+    public OrderOutboxRelay(OrderOutboxRepository outboxRepository,
+                            RabbitTemplate rabbitTemplate,
+                            TransactionTemplate transactionTemplate,
+                            OrderMetrics orderMetrics,
+                            @Value("${order.outbox.batch-size:100}") int batchSize,
+                            @Value("${order.outbox.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.orderMetrics = orderMetrics;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:100}")
+    public void relay() {
+        if (!relayLock.tryLock()) {
+            return;
+        }
+        try {
+            // Keep going while batches come back full, then wait for the next poll
+            int published;
+            do {
+                published = transactionTemplate.execute(status -> relayBatch());
+            } while (published == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed, will retry on next poll", e);
+        } finally {
+            relayLock.unlock();
+        }
+    }
+
+    private int relayBatch() {
+        List<OrderOutbox> batch = outboxRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        long started = System.nanoTime();
+        List<CorrelationData> correlations = new ArrayList<>();
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (OrderOutbox entry : batch) {
+                    CorrelationData correlation = new CorrelationData(String.valueOf(entry.getId()));
+                    operations.send(entry.getExchange(), entry.getRoutingKey(), toMessage(entry), correlation);
+                    correlations.add(correlation);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Outbox publish failed after {} of {} messages", correlations.size(), batch.size(), e);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        List<Long> confirmed = new ArrayList<>();
+        // Partitions with an unconfirmed row: later rows stay too, or the retry would overtake them
+        Set<String> stalled = new HashSet<>();
+        Timer lag = orderMetrics.outboxLag();
+        for (int i = 0; i < batch.size(); i++) {
+            OrderOutbox entry = batch.get(i);
+            if (stalled.contains(entry.getRoutingKey())) {
+                continue;
+            }
+            if (i >= correlations.size() || !isAcked(correlations.get(i), deadline)) {
+                stalled.add(entry.getRoutingKey());
+                continue;
+            }
+            confirmed.add(entry.getId());
+            if (entry.getCreatedAt() != null) {
+                lag.record(Duration.between(entry.getCreatedAt(), LocalDateTime.now()));
+            }
+        }
+        orderMetrics.outboxPublish().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        outboxRepository.deleteAllByIdInBatch(confirmed);
+
+        if (confirmed.size() < batch.size()) {
+            log.warn("Broker confirmed {} of {} outbox messages, the rest will be retried", confirmed.size(), batch.size());
+            return 0;
+        }
+        log.debug("Relayed {} outbox messages", confirmed.size());
+        return confirmed.size();
+    }
+
+    private Message toMessage(OrderOutbox entry) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(entry.getContentType());
+        properties.setMessageId(String.valueOf(entry.getId()));
+        return new Message(entry.getPayload(), properties);
+    }
+
+    private boolean isAcked(CorrelationData correlation, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return correlation.getFuture().get(remaining, TimeUnit.NANOSECONDS).isAck();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
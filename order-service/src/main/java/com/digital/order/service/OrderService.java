@@ -1,25 +1,53 @@
 package com.digital.order.service;
 
 import com.digital.order.model.Order;
+import com.digital.order.model.OrderOutbox;
+import com.digital.order.repository.OrderOutboxRepository;
 import com.digital.order.repository.OrderRepository;
+import com.digital.order.dto.BatchOrderResponse;
+import com.digital.order.dto.BatchOrderResult;
 import com.digital.order.dto.OrderRequest;
+import com.digital.order.config.OrderPartitions;
 import com.digital.order.config.RabbitMQConfig;
+import com.digital.order.event.OrderCreatedEvent;
+import com.digital.order.event.OrderStatusChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderService {
     private final OrderRepository orderRepository;
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final OrderPartitions orderPartitions;
+    private final TransactionTemplate transactionTemplate;
     private final RabbitTemplate rabbitTemplate;
     private final SimpMessagingTemplate messagingTemplate;
     private final QueueService queueService;
+    private final ServiceTimeEstimator serviceTimeEstimator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderMetrics orderMetrics;
+    private final ShopAdmission shopAdmission;
+
+    @Value("${order.batch.max-size:500}")
+    private int maxBatchSize;
 
     @Transactional
     public Order createOrder(OrderRequest orderRequest) {
@@ -34,21 +62,115 @@ public class OrderService {
         Order savedOrder = orderRepository.save(order);
         log.info("Order saved with ID: {}", savedOrder.getId());
 
-        rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, 
-                                    RabbitMQConfig.ROUTING_KEY, 
-                                    savedOrder);
+        orderOutboxRepository.save(outboxEntry(savedOrder));
         
         return savedOrder;
     }
 
+    /**
+     * Accepts a burst of orders: valid ones are inserted in JDBC batches together with their outbox rows,
+     * which {@link OrderOutboxRelay} publishes after commit as it does for {@link #createOrder}. Each order gets
+     * its own result, and an invalid or unsaved order does not affect the others. Orders for a shop whose
+     * queues are full are rejected without being written.
+     */
+    public BatchOrderResponse createOrders(List<OrderRequest> orderRequests) {
+        if (orderRequests.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch of " + orderRequests.size() + " orders exceeds the limit of " + maxBatchSize);
+        }
+        log.info("Creating batch of {} orders", orderRequests.size());
+
+        BatchOrderResult[] results = new BatchOrderResult[orderRequests.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < orderRequests.size(); i++) {
+            OrderRequest request = orderRequests.get(i);
+            String error = validate(request);
+            if (error != null) {
+                results[i] = rejected(i, error);
+                continue;
+            }
+            ShopAdmission.Admission admission = shopAdmission.tryAdmit(request.getShopId());
+            if (!admission.admitted()) {
+                results[i] = rejected(i, "Shop " + request.getShopId() + " has no free place in its queues; retry after "
+                        + admission.retryAfterSeconds() + "s");
+                continue;
+            }
+            Order order = new Order();
+            order.setCustomerName(request.getCustomerName());
+            order.setOrderDetails(request.getOrderDetails());
+            order.setOrderTime(LocalDateTime.now());
+            order.setStatus(Order.OrderStatus.CREATED);
+            order.setShopId(request.getShopId());
+            orders.add(order);
+            validIndexes.add(i);
+        }
+
+        List<String> saveErrors = saveOrders(orders);
+        // Backwards, so removing a failed order keeps the positions of those still to be checked
+        for (int j = saveErrors.size() - 1; j >= 0; j--) {
+            if (saveErrors.get(j) != null) {
+                int index = validIndexes.remove(j);
+                shopAdmission.release(orders.remove(j).getShopId());
+                results[index] = BatchOrderResult.builder()
+                        .index(index)
+                        .outcome(BatchOrderResult.Outcome.SAVE_FAILED)
+                        .error(saveErrors.get(j))
+                        .build();
+            }
+        }
+
+        for (int j = 0; j < orders.size(); j++) {
+            int index = validIndexes.get(j);
+            results[index] = BatchOrderResult.builder()
+                    .index(index)
+                    .orderId(orders.get(j).getId())
+                    .outcome(BatchOrderResult.Outcome.ACCEPTED)
+                    .build();
+        }
+
+        List<BatchOrderResult> resultList = List.of(results);
+        int accepted = (int) resultList.stream()
+                .filter(result -> result.getOutcome() == BatchOrderResult.Outcome.ACCEPTED)
+                .count();
+        log.info("Batch processed: {} accepted, {} failed", accepted, resultList.size() - accepted);
+        return BatchOrderResponse.builder()
+                .accepted(accepted)
+                .failed(resultList.size() - accepted)
+                .results(resultList)
+                .build();
+    }
+
+    /**
+     * Set-based counterpart of {@code updateOrderStatus(id, IN_QUEUE)} for the batch listener.
+     * Returns the orders that actually moved, straight from the UPDATE without a re-read.
+     */
+    @Transactional
+    public List<Order> markOrdersInQueue(List<Long> orderIds) {
+        List<Order> orders = orderRepository.markInQueue(orderIds);
+        log.info("{} of {} orders moved to IN_QUEUE", orders.size(), orderIds.size());
+        for (Order order : orders) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), order.getStatus()));
+            messagingTemplate.convertAndSend("/topic/order." + order.getId(), order);
+        }
+        return orders;
+    }
+
+    /**
+     * Moves the order to {@code status} with a single conditional UPDATE. Transitions not allowed from the
+     * order's current status are rejected with 409 CONFLICT. A cancelled order also leaves its queue.
+     */
     public Order updateOrderStatus(Long orderId, Order.OrderStatus status) {
         log.info("Updating order {} status to: {}", orderId, status);
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-        
-        order.setStatus(status);
-        Order updatedOrder = orderRepository.save(order);
+        Order updatedOrder = orderRepository.transition(orderId, status)
+                .orElseThrow(() -> rejectedTransition(orderId, status));
         log.info("Order {} status updated successfully", orderId);
+        if (status == Order.OrderStatus.CANCELLED) {
+            queueService.cancelQueueEntry(orderId);
+        }
+        recordPreparationTime(orderId, status);
+        recordLifecycle(updatedOrder);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderId, status));
         
         messagingTemplate.convertAndSend("/topic/order." + orderId, updatedOrder);
         log.info("WebSocket notification sent for order: {}", orderId);
@@ -56,6 +178,124 @@ public class OrderService {
         return updatedOrder;
     }
 
+    // Only on the failure path: read the row to tell a missing order from an illegal transition
+    private RuntimeException rejectedTransition(Long orderId, Order.OrderStatus status) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        log.warn("Rejected status change of order {} from {} to {}", orderId, order.getStatus(), status);
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Order " + orderId + " cannot move from " + order.getStatus() + " to " + status);
+    }
+
+    // The transition table fixes the previous status: PROCESSING is only entered from IN_QUEUE,
+    // READY only from PROCESSING, and ending a run that never started is a no-op
+    private void recordPreparationTime(Long orderId, Order.OrderStatus next) {
+        if (next == Order.OrderStatus.PROCESSING) {
+            queueService.findQueueId(orderId)
+                    .ifPresent(queueId -> serviceTimeEstimator.processingStarted(orderId, queueId));
+        } else if (next == Order.OrderStatus.READY || next == Order.OrderStatus.CANCELLED) {
+            serviceTimeEstimator.processingEnded(orderId, next == Order.OrderStatus.READY);
+        }
+    }
+
+    private void recordLifecycle(Order order) {
+        if ((order.getStatus() == Order.OrderStatus.READY || order.getStatus() == Order.OrderStatus.CANCELLED)
+                && order.getOrderTime() != null) {
+            orderMetrics.lifecycle(order.getStatus().name().toLowerCase())
+                    .record(Duration.between(order.getOrderTime(), LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Inserts the orders and their outbox rows in one transaction; pooled sequence ids plus
+     * hibernate.jdbc.batch_size turn this into a few batched INSERTs. If the batch fails, every order is retried
+     * with its outbox row in its own transaction so one bad row does not take the others down. Returns the error
+     * per order, null for each order saved.
+     */
+    private List<String> saveOrders(List<Order> orders) {
+        List<String> errors = new ArrayList<>(Collections.nCopies(orders.size(), null));
+        if (orders.isEmpty()) {
+            return errors;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                orderRepository.saveAll(orders);
+                orderOutboxRepository.saveAll(orders.stream().map(this::outboxEntry).toList());
+            });
+            return errors;
+        } catch (RuntimeException e) {
+            log.warn("Batch insert of {} orders failed, saving them one by one", orders.size(), e);
+        }
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            // The id handed out by the rolled-back batch was never written; take a fresh one
+            order.setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        orderOutboxRepository.save(outboxEntry(orderRepository.save(order))));
+            } catch (RuntimeException e) {
+                log.error("Failed to save order for customer {} of shop {}", order.getCustomerName(), order.getShopId(), e);
+                order.setId(null);
+                errors.set(i, "Order could not be saved: " + e.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Written in the order's transaction and published by OrderOutboxRelay after commit, so a slow broker
+     * does not hold up the request and a rollback never leaks a message.
+     */
+    private OrderOutbox outboxEntry(Order order) {
+        Message message = rabbitTemplate.getMessageConverter().toMessage(OrderCreatedEvent.of(order), new MessageProperties());
+        OrderOutbox outbox = new OrderOutbox();
+        outbox.setOrderId(order.getId());
+        outbox.setExchange(RabbitMQConfig.EXCHANGE_NAME);
+        outbox.setRoutingKey(orderPartitions.routingKey(order.getShopId()));
+        outbox.setContentType(message.getMessageProperties().getContentType());
+        outbox.setPayload(message.getBody());
+        return outbox;
+    }
+
+    private String validate(OrderRequest request) {
+        if (request == null) {
+            return "Order is empty";
+        }
+        if (request.getCustomerName() == null || request.getCustomerName().isBlank()) {
+            return "customerName is required";
+        }
+        if (request.getShopId() == null) {
+            return "shopId is required";
+        }
+        return null;
+    }
+
+    private BatchOrderResult rejected(int index, String error) {
+        return BatchOrderResult.builder()
+                .index(index)
+                .outcome(BatchOrderResult.Outcome.REJECTED)
+                .error(error)
+                .build();
+    }
+
+    /**
+     * Cancels every order of the shop that is not being prepared yet, e.g. when the shop closes. The orders,
+     * their queue entries and the queues are each updated with one statement, however many orders there are.
+     */
+    @Transactional
+    public int cancelShopOrders(Long shopId) {
+        log.info("Cancelling open orders of shop: {}", shopId);
+        List<Order> cancelled = orderRepository.cancelOpenOrders(shopId);
+        queueService.cancelQueueEntries(shopId, cancelled.stream().map(Order::getId).toList());
+        for (Order order : cancelled) {
+            recordLifecycle(order);
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), order.getStatus()));
+            messagingTemplate.convertAndSend("/topic/order." + order.getId(), order);
+        }
+        log.info("{} orders of shop {} cancelled", cancelled.size(), shopId);
+        return cancelled.size();
+    }
+
     public void cancelOrder(Long orderId) {
         log.info("Cancelling order: {}", orderId);
         updateOrderStatus(orderId, Order.OrderStatus.CANCELLED);
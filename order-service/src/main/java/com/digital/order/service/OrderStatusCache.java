@@ -0,0 +1,119 @@
+package com.digital.order.service;
+
+import com.digital.order.dto.OrderStatusResponse;
+import com.digital.order.event.OrderStatusChangedEvent;
+import com.digital.order.event.QueueEntryAddedEvent;
+import com.digital.order.event.QueueEntryRemovedEvent;
+import com.digital.order.event.QueueUpdatedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting cache of order status responses for the polling endpoint.
+ * <p>
+ * Order and queue events update cached entries after commit: a status change rewrites the status,
+ * and an order leaving a queue drops the cached orders behind it. Their positions are not shifted
+ * in place, because a poll between the commit and the listener may already have cached the new
+ * position. A queue update drops the queue's cached orders, since it may follow a bulk removal.
+ * Events are local to this instance, so other instances converge within the TTL.
+ * The listeners run first, so other listeners reading the cache for the same event see the update.
+ * Hit, miss and eviction counts are published as the cache.* meters tagged cache=orderStatus.
+ */
+@Component
+public class OrderStatusCache {
+    private final Cache<Long, OrderStatusResponse> cache;
+    private final Map<Long, Set<Long>> queueMembers = new ConcurrentHashMap<>();
+
+    public OrderStatusCache(MeterRegistry meterRegistry,
+                            @Value("${order.status-cache.max-size:10000}") long maxSize,
+                            @Value("${order.status-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .executor(Runnable::run)
+                .removalListener(this::onRemoval)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "orderStatus");
+    }
+
+    public OrderStatusResponse get(Long orderId, Function<Long, OrderStatusResponse> loader) {
+        return cache.get(orderId, id -> {
+            OrderStatusResponse response = loader.apply(id);
+            if (response.getQueueId() != null) {
+                queueMembers.computeIfAbsent(response.getQueueId(), queueId -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            return response;
+        });
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        cache.asMap().computeIfPresent(event.orderId(), (orderId, cached) -> cached.getQueueId() == null
+                ? null
+                : cached.toBuilder().status(event.status().name()).build());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryAdded(QueueEntryAddedEvent event) {
+        cache.invalidate(event.orderId());
+        forEachMember(event.queueId(), (orderId, cached) -> cached.toBuilder()
+                .totalCustomersWaiting(event.queueSize())
+                .build());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryRemoved(QueueEntryRemovedEvent event) {
+        cache.invalidate(event.orderId());
+        // Orders behind moved up: reload them. Orders ahead keep their position; the queue size is absolute
+        forEachMember(event.queueId(), (orderId, cached) -> cached.getTicket() > event.ticket()
+                ? null
+                : cached.toBuilder().totalCustomersWaiting(event.queueSize()).build());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueUpdated(QueueUpdatedEvent event) {
+        // Bulk changes (a shop's orders cancelled at once) carry no tickets, so positions cannot be moved in place
+        Set<Long> members = queueMembers.get(event.queueId());
+        if (members != null) {
+            cache.invalidateAll(Set.copyOf(members));
+        }
+    }
+
+    private void forEachMember(Long queueId, BiFunction<Long, OrderStatusResponse, OrderStatusResponse> update) {
+        Set<Long> members = queueMembers.get(queueId);
+        if (members != null) {
+            members.forEach(orderId -> cache.asMap().computeIfPresent(orderId, update));
+        }
+    }
+
+    private void onRemoval(Long orderId, OrderStatusResponse response, RemovalCause cause) {
+        if (cause == RemovalCause.REPLACED || response == null || response.getQueueId() == null
+                || cache.asMap().containsKey(orderId)) {
+            return;
+        }
+        queueMembers.computeIfPresent(response.getQueueId(), (queueId, members) -> {
+            members.remove(orderId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+}
@@ -0,0 +1,124 @@
+package com.digital.order.service;
+
+import com.digital.order.dto.OrderStatusResponse;
+import com.digital.order.event.OrderStatusChangedEvent;
+import com.digital.order.model.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of open Server-Sent Events streams per order. A stream starts with a status snapshot, gets a
+ * "status" event on every status change and is completed once the order is READY or CANCELLED. Idle
+ * streams hold no thread, only the emitter, so one node can keep many of them open.
+ */
+@Component
+@Slf4j
+public class OrderStatusStreams {
+    private final QueueService queueService;
+    private final long timeoutMs;
+
+    private final Map<Long, Set<SseEmitter>> streams = new ConcurrentHashMap<>();
+
+    public OrderStatusStreams(QueueService queueService,
+                              @Value("${order.sse.timeout-ms:1800000}") long timeoutMs) {
+        this.queueService = queueService;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Registers the stream before reading the snapshot, so a change committed in between is sent as an
+     * event instead of being lost. Such an event can reach the client ahead of the snapshot; statuses only
+     * move forward, so the client keeps the most advanced one.
+     */
+    public SseEmitter open(Long orderId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        streams.computeIfAbsent(orderId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+        emitter.onCompletion(() -> close(orderId, emitter));
+        emitter.onTimeout(() -> close(orderId, emitter));
+        emitter.onError(e -> close(orderId, emitter));
+
+        OrderStatusResponse snapshot = queueService.getOrderStatus(orderId);
+        if (!isOpen(orderId, emitter)) {
+            // A READY or CANCELLED event already completed the stream
+            return emitter;
+        }
+        if (!send(emitter, snapshot) || isTerminal(snapshot.getStatus())) {
+            close(orderId, emitter);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    int openStreams() {
+        return streams.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Set<SseEmitter> emitters = streams.get(event.orderId());
+        if (emitters == null) {
+            return;
+        }
+        // The event's status is authoritative even if the cached snapshot has not caught up yet
+        OrderStatusResponse status = queueService.getOrderStatus(event.orderId()).toBuilder()
+                .status(event.status().name())
+                .build();
+        boolean terminal = isTerminal(status.getStatus());
+        for (SseEmitter emitter : emitters) {
+            if (send(emitter, status) && terminal) {
+                emitter.complete();
+            }
+        }
+        if (terminal) {
+            streams.remove(event.orderId());
+        }
+    }
+
+    // Comment lines keep idle connections from being cut by proxies and reveal dead clients
+    @Scheduled(fixedDelayString = "${order.sse.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        streams.values().forEach(emitters -> emitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }));
+    }
+
+    private boolean send(SseEmitter emitter, OrderStatusResponse status) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(status));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping SSE stream for order {}", status.getOrderId(), e);
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private boolean isOpen(Long orderId, SseEmitter emitter) {
+        Set<SseEmitter> emitters = streams.get(orderId);
+        return emitters != null && emitters.contains(emitter);
+    }
+
+    private void close(Long orderId, SseEmitter emitter) {
+        streams.computeIfPresent(orderId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private static boolean isTerminal(String status) {
+        return Order.OrderStatus.READY.name().equals(status) || Order.OrderStatus.CANCELLED.name().equals(status);
+    }
+}
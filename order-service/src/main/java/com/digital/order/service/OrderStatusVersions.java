@@ -0,0 +1,169 @@
+package com.digital.order.service;
+
+import com.digital.order.dto.OrderStatusResponse;
+import com.digital.order.event.OrderStatusChangedEvent;
+import com.digital.order.event.QueueEntryAddedEvent;
+import com.digital.order.event.QueueEntryRemovedEvent;
+import com.digital.order.event.QueueUpdatedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions of order status responses, used as ETags by the polling endpoint and to park long-poll requests.
+ * <p>
+ * Every change stamps the order, or for position changes its whole queue, with the next value of one
+ * counter; an order's version is the larger of its own and its queue's stamp, so it only grows. The
+ * counter is seeded from the wall clock, so a restart never hands out a smaller version. Versions are
+ * local to this instance, like the status cache: behind a load balancer a client may see a spurious 200.
+ */
+@Component
+public class OrderStatusVersions {
+    private final QueueService queueService;
+    private final long longPollTimeoutMs;
+
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final Cache<Long, Stamp> orderStamps;
+    private final Map<Long, Long> queueStamps = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Waiter>> orderWaiters = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Waiter>> queueWaiters = new ConcurrentHashMap<>();
+
+    public OrderStatusVersions(QueueService queueService,
+                               @Value("${order.status-version.max-size:100000}") long maxSize,
+                               @Value("${order.status-version.idle-minutes:30}") long idleMinutes,
+                               @Value("${order.long-poll.timeout-ms:30000}") long longPollTimeoutMs) {
+        this.queueService = queueService;
+        this.longPollTimeoutMs = longPollTimeoutMs;
+        this.orderStamps = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+    }
+
+    public long version(Long orderId) {
+        Stamp stamp = orderStamps.get(orderId, id -> new Stamp(clock.incrementAndGet(), null));
+        Long queueStamp = stamp.queueId() == null ? null : queueStamps.get(stamp.queueId());
+        return queueStamp == null ? stamp.version() : Math.max(stamp.version(), queueStamp);
+    }
+
+    public ResponseEntity<OrderStatusResponse> respond(Long orderId) {
+        // Read the version before the body, so the body is never older than the ETag it is sent with
+        long version = version(orderId);
+        OrderStatusResponse status = queueService.getOrderStatus(orderId);
+        if (status.getQueueId() != null) {
+            orderStamps.asMap().computeIfPresent(orderId, (id, stamp) -> new Stamp(stamp.version(), status.getQueueId()));
+        }
+        return ResponseEntity.ok().eTag(etag(version)).body(status);
+    }
+
+    /**
+     * Answers once the order's version moves past {@code since}, or with 304 when the timeout expires first.
+     */
+    public DeferredResult<ResponseEntity<OrderStatusResponse>> await(Long orderId, long since) {
+        DeferredResult<ResponseEntity<OrderStatusResponse>> result = new DeferredResult<>(longPollTimeoutMs,
+                () -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(since)).build());
+        Stamp stamp = orderStamps.getIfPresent(orderId);
+        Waiter waiter = new Waiter(orderId, stamp == null ? null : stamp.queueId(), result);
+        register(orderWaiters, orderId, waiter);
+        if (waiter.queueId() != null) {
+            register(queueWaiters, waiter.queueId(), waiter);
+        }
+        result.onCompletion(() -> unregister(waiter));
+
+        // Checked after registering so a change made in between is not missed
+        if (version(orderId) > since) {
+            result.setResult(respond(orderId));
+        }
+        return result;
+    }
+
+    public static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        stampOrder(event.orderId(), null);
+        wake(orderWaiters.get(event.orderId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryAdded(QueueEntryAddedEvent event) {
+        stampOrder(event.orderId(), event.queueId());
+        stampQueue(event.queueId());
+        wake(orderWaiters.get(event.orderId()));
+        wake(queueWaiters.get(event.queueId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryRemoved(QueueEntryRemovedEvent event) {
+        stampOrder(event.orderId(), event.queueId());
+        stampQueue(event.queueId());
+        wake(orderWaiters.get(event.orderId()));
+        wake(queueWaiters.get(event.queueId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueUpdated(QueueUpdatedEvent event) {
+        stampQueue(event.queueId());
+        wake(queueWaiters.get(event.queueId()));
+    }
+
+    int waiting() {
+        return orderWaiters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void stampOrder(Long orderId, Long queueId) {
+        long version = clock.incrementAndGet();
+        orderStamps.asMap().compute(orderId, (id, stamp) ->
+                new Stamp(version, queueId != null || stamp == null ? queueId : stamp.queueId()));
+    }
+
+    private void stampQueue(Long queueId) {
+        queueStamps.put(queueId, clock.incrementAndGet());
+    }
+
+    private void wake(Set<Waiter> waiters) {
+        if (waiters != null) {
+            waiters.forEach(waiter -> {
+                unregister(waiter);
+                waiter.result().setResult(respond(waiter.orderId()));
+            });
+        }
+    }
+
+    private static void register(Map<Long, Set<Waiter>> waiters, Long key, Waiter waiter) {
+        waiters.computeIfAbsent(key, id -> ConcurrentHashMap.newKeySet()).add(waiter);
+    }
+
+    private void unregister(Waiter waiter) {
+        unregister(orderWaiters, waiter.orderId(), waiter);
+        if (waiter.queueId() != null) {
+            unregister(queueWaiters, waiter.queueId(), waiter);
+        }
+    }
+
+    private static void unregister(Map<Long, Set<Waiter>> waiters, Long key, Waiter waiter) {
+        waiters.computeIfPresent(key, (id, set) -> {
+            set.remove(waiter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private record Stamp(long version, Long queueId) {
+    }
+
+    private record Waiter(Long orderId, Long queueId, DeferredResult<ResponseEntity<OrderStatusResponse>> result) {
+    }
+}
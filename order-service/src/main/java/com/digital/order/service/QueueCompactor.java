@@ -0,0 +1,43 @@
+package com.digital.order.service;
+
+import com.digital.order.repository.QueueOrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes tombstoned queue entries (see {@link QueueService#cancelQueueEntry}) in batches off the request path.
+ * Tombstones are already excluded from ranks, so how soon they are deleted only affects table size.
+ * Batches are locked with SKIP LOCKED, so several instances can compact at the same time.
+ */
+@Component
+@Slf4j
+public class QueueCompactor {
+    private final QueueOrderRepository queueOrderRepository;
+    private final int batchSize;
+
+    public QueueCompactor(QueueOrderRepository queueOrderRepository,
+                          @Value("${order.queue.compaction.batch-size:1000}") int batchSize) {
+        this.queueOrderRepository = queueOrderRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${order.queue.compaction.interval-ms:5000}")
+    public void compact() {
+        try {
+            // Keep going while batches come back full, so a mass cancellation is cleared in one run
+            int deleted;
+            int total = 0;
+            do {
+                deleted = queueOrderRepository.deleteTombstones(batchSize).size();
+                total += deleted;
+            } while (deleted == batchSize);
+            if (total > 0) {
+                log.info("Compacted {} cancelled queue entries", total);
+            }
+        } catch (RuntimeException e) {
+            log.error("Queue compaction failed, will retry on next run", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.digital.order.service;
+
+import com.digital.order.dto.QueuePositionDelta;
+import com.digital.order.event.QueueEntriesRemovedEvent;
+import com.digital.order.event.QueueEntryRemovedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes position changes to /topic/queue.{queueId} so clients stop polling for them. Removals are
+ * collected per queue and sent as one {@link QueuePositionDelta} per tick, so a burst of removals
+ * costs one frame per queue instead of one message per waiting customer.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueuePositionBroadcaster {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ServiceTimeEstimator serviceTimeEstimator;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryRemoved(QueueEntryRemovedEvent event) {
+        collect(event.queueId(), List.of(event.ticket()), event.queueSize());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntriesRemoved(QueueEntriesRemovedEvent event) {
+        collect(event.queueId(), event.tickets(), event.queueSize());
+    }
+
+    @Scheduled(fixedDelayString = "${order.queue-broadcast.interval-ms:250}")
+    public void broadcast() {
+        for (Long queueId : pending.keySet()) {
+            Pending removals = pending.remove(queueId);
+            if (removals == null) {
+                continue;
+            }
+            removals.tickets.sort(null);
+            ServiceTimeEstimator.PreparationTime preparation = serviceTimeEstimator.preparationTime(queueId);
+            messagingTemplate.convertAndSend("/topic/queue." + queueId, QueuePositionDelta.builder()
+                    .queueId(queueId)
+                    .removedTickets(removals.tickets)
+                    .queueSize(removals.queueSize)
+                    .meanPreparationSeconds(preparation.meanSeconds())
+                    .stdDevPreparationSeconds(preparation.stdDevSeconds())
+                    .build());
+            log.debug("Sent position delta for queue {} with {} removals", queueId, removals.tickets.size());
+        }
+    }
+
+    private void collect(Long queueId, List<Long> tickets, int queueSize) {
+        pending.compute(queueId, (id, removals) -> {
+            Pending next = removals == null ? new Pending() : removals;
+            next.tickets.addAll(tickets);
+            next.queueSize = queueSize;
+            return next;
+        });
+    }
+
+    // Only touched inside ConcurrentHashMap.compute or after being removed from the map
+    private static final class Pending {
+        private final List<Long> tickets = new ArrayList<>();
+        private int queueSize;
+    }
+}
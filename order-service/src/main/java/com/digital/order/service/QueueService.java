@@ -4,12 +4,25 @@ import com.digital.order.model.*;
 import com.digital.order.repository.*;
 import com.digital.order.dto.OrderStatusResponse;
 import com.digital.order.dto.QueueRequest;
+import com.digital.order.engine.InMemoryQueueEngine;
+import com.digital.order.event.QueueEntriesRemovedEvent;
+import com.digital.order.event.QueueEntryAddedEvent;
+import com.digital.order.event.QueueEntryRemovedEvent;
+import com.digital.order.event.QueueUpdatedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -17,100 +30,188 @@ import java.util.List;
 public class QueueService {
     private final QueueRepository queueRepository;
     private final QueueOrderRepository queueOrderRepository;
-    
-    private static final int AVERAGE_PREPARATION_MINUTES = 5; // Average time per order
+    private final OrderWaitlistRepository orderWaitlistRepository;
+    private final ShopQueueIndex shopQueueIndex;
+    private final ServiceTimeEstimator serviceTimeEstimator;
+    private final OrderStatusCache orderStatusCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Optional<InMemoryQueueEngine> queueEngine; // present when order.queue.engine=memory
 
     @Transactional
     public QueueOrder addOrderToQueue(Long queueId, Order order) {
-        Queue queue = queueRepository.findById(queueId)
-                .orElseThrow(() -> new RuntimeException("Queue not found"));
-        
-        if (queue.getCurrentSize() >= queue.getMaxSize()) {
-            throw new RuntimeException("Queue is full");
+        if (queueEngine.isPresent()) {
+            return placed(queueEngine.get().add(queueId, order.getId()), order);
         }
 
-        // Get current position
-        List<QueueOrder> queueOrders = queueOrderRepository.findByQueueIdOrderByPositionAsc(queueId);
-        int position = queueOrders.isEmpty() ? 1 : queueOrders.get(queueOrders.size() - 1).getPosition() + 1;
-
-        QueueOrder queueOrder = new QueueOrder();
-        queueOrder.setQueue(queue);
-        queueOrder.setOrder(order);
-        queueOrder.setPosition(position);
-
-        queue.setCurrentSize(queue.getCurrentSize() + 1);
-        queueRepository.save(queue);
+        // Reserve capacity and take the next ticket in one round trip, independent of queue depth
+        QueueRepository.TicketClaim claim = queueRepository.claimTicket(queueId)
+                .orElseThrow(() -> queueRepository.existsById(queueId)
+                        ? new RuntimeException("Queue is full")
+                        : new RuntimeException("Queue not found"));
 
-        return queueOrderRepository.save(queueOrder);
+        return saveQueueOrder(claim, order);
     }
 
     @Transactional
     public void removeOrderFromQueue(Long orderId) {
-        QueueOrder queueOrder = queueOrderRepository.findByOrderId(orderId);
-        if (queueOrder == null) {
+        if (queueEngine.isPresent()) {
+            queueEngine.get().remove(orderId).ifPresent(removal -> eventPublisher.publishEvent(
+                    new QueueEntryRemovedEvent(removal.shopId(), removal.queueId(), orderId, removal.ticket(), removal.queueSize())));
             return;
         }
 
-        Queue queue = queueOrder.getQueue();
-        queue.setCurrentSize(queue.getCurrentSize() - 1);
-        queueRepository.save(queue);
+        // Positions are ranks over immutable tickets, so the orders behind need no rewrite
+        queueOrderRepository.removeByOrderId(orderId).ifPresent(removed -> eventPublisher.publishEvent(
+                new QueueEntryRemovedEvent(removed.getShopId(), removed.getQueueId(), orderId, removed.getTicket(), removed.getQueueSize())));
+    }
 
-        // Reorder positions for remaining orders
-        List<QueueOrder> remainingOrders = queueOrderRepository.findByQueueIdOrderByPositionAsc(queue.getId());
-        for (int i = 0; i < remainingOrders.size(); i++) {
-            remainingOrders.get(i).setPosition(i + 1);
+    /**
+     * Takes a cancelled order out of its queue in O(1): the entry is tombstoned rather than deleted, and
+     * ranks skip tombstones, so nobody behind it is rewritten. {@link QueueCompactor} deletes the row later.
+     */
+    @Transactional
+    public void cancelQueueEntry(Long orderId) {
+        if (queueEngine.isPresent()) {
+            removeOrderFromQueue(orderId);
+            return;
         }
-        queueOrderRepository.saveAll(remainingOrders);
+        queueOrderRepository.tombstoneByOrderId(orderId).ifPresent(removed -> eventPublisher.publishEvent(
+                new QueueEntryRemovedEvent(removed.getShopId(), removed.getQueueId(), orderId, removed.getTicket(), removed.getQueueSize())));
+    }
 
-        queueOrderRepository.delete(queueOrder);
+    /**
+     * Takes the given cancelled orders of one shop out of their queues. With the database engine this is one
+     * statement for the whole shop, and one {@link QueueUpdatedEvent} and one {@link QueueEntriesRemovedEvent}
+     * per affected queue instead of an event per entry.
+     */
+    @Transactional
+    public void cancelQueueEntries(Long shopId, List<Long> orderIds) {
+        orderWaitlistRepository.deleteCancelled(shopId);
+        if (queueEngine.isPresent()) {
+            orderIds.forEach(this::removeOrderFromQueue);
+            return;
+        }
+        Map<Long, List<QueueOrderRepository.ReleasedEntry>> released = queueOrderRepository.tombstoneCancelledInShop(shopId)
+                .stream()
+                .collect(Collectors.groupingBy(QueueOrderRepository.ReleasedEntry::getQueueId, LinkedHashMap::new, Collectors.toList()));
+        released.forEach((queueId, entries) -> {
+            QueueOrderRepository.ReleasedEntry queue = entries.get(0);
+            eventPublisher.publishEvent(new QueueUpdatedEvent(queue.getShopId(), queueId,
+                    Queue.QueueStatus.valueOf(queue.getStatus()), queue.getMaxSize(), queue.getCurrentSize()));
+            eventPublisher.publishEvent(new QueueEntriesRemovedEvent(queue.getShopId(), queueId,
+                    entries.stream().map(QueueOrderRepository.ReleasedEntry::getTicket).toList(), queue.getCurrentSize()));
+        });
     }
 
     public List<QueueOrder> getQueueOrders(Long queueId) {
-        return queueOrderRepository.findByQueueIdOrderByPositionAsc(queueId);
+        List<QueueOrder> queueOrders = queueOrderRepository.findByQueueIdAndCancelledAtIsNullOrderByTicketAsc(queueId);
+        for (int i = 0; i < queueOrders.size(); i++) {
+            queueOrders.get(i).setPosition(i + 1);
+        }
+        return queueOrders;
     }
 
     public Queue getQueueInfo(Long queueId) {
-        return queueRepository.findById(queueId)
+        Queue queue = queueRepository.findById(queueId)
                 .orElseThrow(() -> new RuntimeException("Queue not found"));
+        // The table lags the engine by one flush interval
+        queueEngine.flatMap(engine -> engine.currentSize(queueId)).ifPresent(queue::setCurrentSize);
+        return queue;
     }
 
     @Transactional
     public QueueOrder assignOrderToQueue(Long shopId, Order order) {
         log.info("Assigning order {} to shop {}", order.getId(), shopId);
-        
-        // Find the shortest queue for the shop
-        List<Queue> shopQueues = queueRepository.findByShopId(shopId);
-        if (shopQueues.isEmpty()) {
-            throw new RuntimeException("No queues available for shop " + shopId);
+        if (queueEngine.isPresent()) {
+            return placed(queueEngine.get().assign(shopId, order.getId()), order);
         }
+        return place(shopId, order).orElseThrow(() -> new RuntimeException("Queue is full"));
+    }
 
-        Queue selectedQueue = shopQueues.stream()
-                .filter(q -> q.getStatus() == Queue.QueueStatus.ACTIVE)
-                .min((q1, q2) -> q1.getCurrentSize().compareTo(q2.getCurrentSize()))
-                .orElseThrow(() -> new RuntimeException("No active queues available"));
+    /**
+     * Like {@link #assignOrderToQueue}, but an order the shop has no room for goes on the shop's waitlist
+     * instead of failing, and is placed by {@link ShopWaitlist} once a place frees up.
+     */
+    @Transactional
+    public Optional<QueueOrder> assignOrWaitlist(Long shopId, Order order) {
+        Optional<QueueOrder> placed = tryAssignOrderToQueue(shopId, order);
+        if (placed.isEmpty()) {
+            waitlist(shopId, order);
+        }
+        return placed;
+    }
 
-        return addOrderToQueue(selectedQueue.getId(), order);
+    /**
+     * Places the order in the shop's shortest queue with room; empty when no ACTIVE queue has room.
+     * Does not throw for a full shop, so it can run inside a caller's transaction without marking it rollback-only.
+     */
+    @Transactional
+    public Optional<QueueOrder> tryAssignOrderToQueue(Long shopId, Order order) {
+        log.info("Assigning order {} to shop {}", order.getId(), shopId);
+        if (queueEngine.isPresent()) {
+            return queueEngine.get().tryAssign(shopId, order.getId()).map(placement -> placed(placement, order));
+        }
+        return place(shopId, order);
     }
 
-    public OrderStatusResponse getOrderStatus(Long orderId) {
-        QueueOrder queueOrder = queueOrderRepository.findByOrderId(orderId);
-        if (queueOrder == null) {
-            return OrderStatusResponse.builder()
-                    .orderId(orderId)
-                    .status("NOT_IN_QUEUE")
-                    .build();
+    /**
+     * Places a batch of one shop's orders: spreads them over the shop's queues shortest-first, claims each
+     * queue's share of tickets with a single statement and inserts the entries together. Orders that do not
+     * fit into the claimed blocks (queues filled up concurrently) fall back to {@link #tryAssignOrderToQueue};
+     * orders that still cannot be placed go on the shop's waitlist.
+     */
+    public List<QueueOrder> assignOrdersToQueues(Long shopId, List<Order> orders) {
+        log.info("Assigning {} orders to shop {}", orders.size(), shopId);
+        List<QueueOrder> placed = new ArrayList<>();
+        List<Order> remaining = new ArrayList<>(orders);
+        if (queueEngine.isEmpty()) {
+            List<Queue> shopQueues = queueRepository.findByShopId(shopId);
+            shopQueueIndex.load(shopId, shopQueues);
+
+            Iterator<Order> pending = orders.iterator();
+            for (Map.Entry<Long, Integer> share : spread(shopQueues, orders.size()).entrySet()) {
+                Optional<QueueRepository.TicketBlock> block = queueRepository.claimTickets(share.getKey(), share.getValue());
+                if (block.isEmpty()) {
+                    continue;
+                }
+                QueueRepository.TicketBlock claimed = block.get();
+                Queue queue = queueRepository.getReferenceById(claimed.getQueueId());
+                for (int i = claimed.getClaimed() - 1; i >= 0; i--) {
+                    QueueOrder queueOrder = new QueueOrder();
+                    queueOrder.setQueue(queue);
+                    queueOrder.setOrder(pending.next());
+                    queueOrder.setTicket(claimed.getLastTicket() - i);
+                    queueOrder.setPosition(claimed.getQueueSize() - i);
+                    placed.add(queueOrder);
+                }
+            }
+            queueOrderRepository.saveAll(placed);
+            for (QueueOrder queueOrder : placed) {
+                eventPublisher.publishEvent(new QueueEntryAddedEvent(shopId, queueOrder.getQueue().getId(),
+                        queueOrder.getOrder().getId(), queueOrder.getTicket(), queueOrder.getPosition()));
+            }
+            remaining = orders.subList(placed.size(), orders.size());
         }
 
-        Queue queue = queueOrder.getQueue();
-        int position = queueOrder.getPosition();
-        
-        return OrderStatusResponse.builder()
-                .orderId(orderId)
-                .status(queueOrder.getOrder().getStatus().toString())
-                .queuePosition(position)
-                .totalCustomersWaiting(queue.getCurrentSize())
-                .estimatedWaitingMinutes(position * AVERAGE_PREPARATION_MINUTES)
-                .build();
+        for (Order order : remaining) {
+            try {
+                tryAssignOrderToQueue(shopId, order).ifPresentOrElse(placed::add, () -> waitlist(shopId, order));
+            } catch (RuntimeException e) {
+                log.error("Failed to assign order {} to a queue of shop {}", order.getId(), shopId, e);
+            }
+        }
+        return placed;
+    }
+
+    public OrderStatusResponse getOrderStatus(Long orderId) {
+        return orderStatusCache.get(orderId, this::loadOrderStatus);
+    }
+
+    public Optional<Long> findQueueId(Long orderId) {
+        if (queueEngine.isPresent()) {
+            return queueEngine.get().status(orderId).map(InMemoryQueueEngine.Standing::queueId);
+        }
+        return queueOrderRepository.findQueueIdByOrderId(orderId);
     }
 
     @Transactional
@@ -122,15 +223,184 @@ public class QueueService {
         queue.setName(request.getName());
         queue.setMaxSize(request.getMaxSize());
         queue.setCurrentSize(0);
+        queue.setNextTicket(0L);
         queue.setStatus(Queue.QueueStatus.ACTIVE);
         
         Queue savedQueue = queueRepository.save(queue);
         log.info("Created queue with ID: {} for shop: {}", savedQueue.getId(), savedQueue.getShopId());
+        queueEngine.ifPresent(engine -> engine.registerQueue(savedQueue));
+        eventPublisher.publishEvent(QueueUpdatedEvent.of(savedQueue));
         
         return savedQueue;
     }
 
+    @Transactional
+    public Queue updateQueueStatus(Long queueId, Queue.QueueStatus status) {
+        log.info("Updating queue {} status to: {}", queueId, status);
+        Queue queue = getQueueInfo(queueId);
+        queue.setStatus(status);
+
+        Queue savedQueue = queueRepository.save(queue);
+        queueEngine.ifPresent(engine -> engine.updateQueueStatus(queueId, status));
+        eventPublisher.publishEvent(QueueUpdatedEvent.of(savedQueue));
+
+        return savedQueue;
+    }
+
     public List<Queue> getQueuesByShopId(Long shopId) {
         return queueRepository.findByShopId(shopId);
     }
-} 
\ No newline at end of file
+
+    private OrderStatusResponse loadOrderStatus(Long orderId) {
+        if (queueEngine.isPresent()) {
+            return queueEngine.get().status(orderId)
+                    .map(standing -> queued(orderId, standing.queueId(), standing.ticket(), standing.status(),
+                            standing.position(), standing.totalWaiting()))
+                    .orElseGet(() -> notInQueue(orderId, queueOrderRepository.findStatusByOrderId(orderId)
+                            .map(QueueOrderRepository.QueuedOrderStatus::getStatus)
+                            .orElse(null)));
+        }
+
+        return queueOrderRepository.findStatusByOrderId(orderId)
+                .map(found -> found.getQueueId() == null
+                        ? notInQueue(orderId, found.getStatus())
+                        : queued(orderId, found.getQueueId(), found.getTicket(), found.getStatus(),
+                                found.getPosition().intValue(), found.getTotalWaiting()))
+                .orElseGet(() -> notInQueue(orderId, null));
+    }
+
+    private OrderStatusResponse queued(Long orderId, Long queueId, long ticket, String status, int position, int totalWaiting) {
+        ServiceTimeEstimator.WaitEstimate wait = serviceTimeEstimator.estimate(queueId, position);
+        return OrderStatusResponse.builder()
+                .orderId(orderId)
+                .status(status)
+                .queueId(queueId)
+                .ticket(ticket)
+                .queuePosition(position)
+                .totalCustomersWaiting(totalWaiting)
+                .estimatedWaitingMinutes(wait.p50Minutes())
+                .estimatedWaitingMinutesP50(wait.p50Minutes())
+                .estimatedWaitingMinutesP90(wait.p90Minutes())
+                .build();
+    }
+
+    /**
+     * Status of an order without a live queue entry. A finished order reports its own status, so a
+     * cancelled order still reads CANCELLED after its entry was tombstoned; anything else is NOT_IN_QUEUE.
+     */
+    private OrderStatusResponse notInQueue(Long orderId, String orderStatus) {
+        boolean finished = orderStatus != null && Order.OrderStatus.valueOf(orderStatus).isTerminal();
+        return OrderStatusResponse.builder()
+                .orderId(orderId)
+                .status(finished ? orderStatus : "NOT_IN_QUEUE")
+                .build();
+    }
+
+    /**
+     * Water-fills {@code count} orders over the ACTIVE queues with room, always topping up the
+     * currently shortest one, and returns how many each queue (by id) should take.
+     */
+    private Map<Long, Integer> spread(List<Queue> shopQueues, int count) {
+        List<Queue> candidates = shopQueues.stream()
+                .filter(q -> q.getStatus() == Queue.QueueStatus.ACTIVE && q.getCurrentSize() < q.getMaxSize())
+                .sorted(Comparator.comparing(Queue::getCurrentSize).thenComparing(Queue::getId))
+                .toList();
+        int[] sizes = candidates.stream().mapToInt(Queue::getCurrentSize).toArray();
+
+        Map<Long, Integer> shares = new LinkedHashMap<>();
+        for (int n = 0; n < count; n++) {
+            int shortest = -1;
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] < candidates.get(i).getMaxSize() && (shortest < 0 || sizes[i] < sizes[shortest])) {
+                    shortest = i;
+                }
+            }
+            if (shortest < 0) {
+                break;
+            }
+            sizes[shortest]++;
+            shares.merge(candidates.get(shortest).getId(), 1, Integer::sum);
+        }
+        return shares;
+    }
+
+    private Optional<QueueOrder> place(Long shopId, Order order) {
+        // Shortest queue with room from the in-memory index; the claim itself still enforces capacity
+        Optional<QueueRepository.TicketClaim> claim = shopQueueIndex.reserve(shopId)
+                .flatMap(queueId -> claimReserved(shopId, queueId))
+                .or(() -> queueRepository.claimTicketInShop(shopId));
+        if (claim.isPresent()) {
+            return Optional.of(saveQueueOrder(claim.get(), order));
+        }
+
+        // Every candidate is busy or full: wait on each active queue in turn, shortest first
+        List<Queue> shopQueues = queueRepository.findByShopId(shopId);
+        shopQueueIndex.load(shopId, shopQueues);
+        List<Queue> activeQueues = shopQueues.stream()
+                .filter(q -> q.getStatus() == Queue.QueueStatus.ACTIVE)
+                .sorted(Comparator.comparing(Queue::getCurrentSize))
+                .toList();
+        for (Queue queue : activeQueues) {
+            claim = queueRepository.claimTicket(queue.getId());
+            if (claim.isPresent()) {
+                return Optional.of(saveQueueOrder(claim.get(), order));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Claims a ticket in the queue the index reserved, handing the reservation back when the claim fails
+     * so a busy or full queue does not look fuller in the index than it is.
+     */
+    private Optional<QueueRepository.TicketClaim> claimReserved(Long shopId, Long queueId) {
+        Optional<QueueRepository.TicketClaim> claim;
+        try {
+            claim = queueRepository.claimTicket(queueId);
+        } catch (RuntimeException e) {
+            shopQueueIndex.release(shopId, queueId);
+            throw e;
+        }
+        if (claim.isEmpty()) {
+            shopQueueIndex.release(shopId, queueId);
+        }
+        return claim;
+    }
+
+    private void waitlist(Long shopId, Order order) {
+        OrderWaitlist entry = new OrderWaitlist();
+        entry.setOrderId(order.getId());
+        entry.setShopId(shopId);
+        orderWaitlistRepository.save(entry);
+        log.warn("No queue of shop {} has room, order {} is waitlisted", shopId, order.getId());
+    }
+
+    private QueueOrder saveQueueOrder(QueueRepository.TicketClaim claim, Order order) {
+        QueueOrder queueOrder = new QueueOrder();
+        queueOrder.setQueue(queueRepository.getReferenceById(claim.getQueueId()));
+        queueOrder.setOrder(order);
+        queueOrder.setTicket(claim.getTicket());
+        queueOrder.setPosition(claim.getPosition());
+
+        QueueOrder saved = queueOrderRepository.save(queueOrder);
+        eventPublisher.publishEvent(new QueueEntryAddedEvent(claim.getShopId(), claim.getQueueId(), order.getId(),
+                claim.getTicket(), claim.getPosition()));
+        return saved;
+    }
+
+    private QueueOrder placed(InMemoryQueueEngine.Placement placement, Order order) {
+        eventPublisher.publishEvent(new QueueEntryAddedEvent(placement.shopId(), placement.queueId(), order.getId(),
+                placement.ticket(), placement.position()));
+
+        Queue queue = new Queue();
+        queue.setId(placement.queueId());
+        queue.setShopId(placement.shopId());
+
+        QueueOrder queueOrder = new QueueOrder();
+        queueOrder.setQueue(queue);
+        queueOrder.setOrder(order);
+        queueOrder.setTicket(placement.ticket());
+        queueOrder.setPosition(placement.position());
+        return queueOrder;
+    }
+}
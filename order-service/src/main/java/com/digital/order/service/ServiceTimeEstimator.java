@@ -0,0 +1,124 @@
+package com.digital.order.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Learns each queue's preparation time from observed PROCESSING -> READY transitions with an
+ * exponentially weighted mean and variance, keeping O(1) state per queue and no history.
+ * <p>
+ * Preparation times of the orders up to a position are treated as independent, so the wait for
+ * position p has mean p * mean and variance p * variance; p50/p90 follow from the normal approximation.
+ * Orders that never leave PROCESSING (stuck, or moved on by a path that skips the estimator) are dropped
+ * from the running measurements after a TTL, so they do not accumulate.
+ */
+@Component
+public class ServiceTimeEstimator {
+    private static final double Z_90 = 1.2816;
+    // Spread assumed around a preparation time known from a single value: the configured default or a first sample
+    private static final double PRIOR_SPREAD = 0.4;
+
+    private final double alpha;
+    private final Moments prior;
+    private final long processingTtlNanos;
+    private final LongSupplier nanoClock;
+
+    private final Map<Long, Moments> queues = new ConcurrentHashMap<>();
+    private final Map<Long, Started> processing = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ServiceTimeEstimator(@Value("${order.eta.default-preparation-minutes:5}") double defaultMinutes,
+                                @Value("${order.eta.smoothing:0.1}") double alpha,
+                                @Value("${order.eta.processing-ttl-minutes:120}") long processingTtlMinutes) {
+        this(defaultMinutes, alpha, processingTtlMinutes, System::nanoTime);
+    }
+
+    ServiceTimeEstimator(double defaultMinutes, double alpha, long processingTtlMinutes, LongSupplier nanoClock) {
+        double meanSeconds = defaultMinutes * 60;
+        this.alpha = alpha;
+        // Until a queue has samples, assume the spread around the configured default
+        this.prior = new Moments(meanSeconds, Math.pow(meanSeconds * PRIOR_SPREAD, 2), 0);
+        this.processingTtlNanos = TimeUnit.MINUTES.toNanos(processingTtlMinutes);
+        this.nanoClock = nanoClock;
+    }
+
+    public void processingStarted(Long orderId, Long queueId) {
+        processing.put(orderId, new Started(queueId, nanoClock.getAsLong()));
+    }
+
+    /**
+     * Ends the measurement for an order; only orders that became READY count as a sample.
+     */
+    public void processingEnded(Long orderId, boolean completed) {
+        Started started = processing.remove(orderId);
+        if (started != null && completed) {
+            observe(started.queueId(), (nanoClock.getAsLong() - started.nanos()) / 1e9);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.eta.processing-sweep-ms:60000}")
+    public void evictStale() {
+        long now = nanoClock.getAsLong();
+        processing.values().removeIf(started -> now - started.nanos() > processingTtlNanos);
+    }
+
+    int inProgress() {
+        return processing.size();
+    }
+
+    void observe(Long queueId, double seconds) {
+        queues.compute(queueId, (id, moments) -> (moments == null ? prior : moments).update(seconds, alpha));
+    }
+
+    public WaitEstimate estimate(Long queueId, int position) {
+        Moments moments = queues.getOrDefault(queueId, prior);
+        double meanSeconds = position * moments.mean();
+        double spreadSeconds = Math.sqrt(position * moments.variance());
+        return new WaitEstimate(meanSeconds, meanSeconds + Z_90 * spreadSeconds);
+    }
+
+    /**
+     * Per-order preparation time of the queue, for clients that derive estimates for any position themselves.
+     */
+    public PreparationTime preparationTime(Long queueId) {
+        Moments moments = queues.getOrDefault(queueId, prior);
+        return new PreparationTime(moments.mean(), Math.sqrt(moments.variance()));
+    }
+
+    public record WaitEstimate(double p50Seconds, double p90Seconds) {
+        public int p50Minutes() {
+            return (int) Math.round(p50Seconds / 60);
+        }
+
+        public int p90Minutes() {
+            return (int) Math.round(p90Seconds / 60);
+        }
+    }
+
+    public record PreparationTime(double meanSeconds, double stdDevSeconds) {
+    }
+
+    private record Started(Long queueId, long nanos) {
+    }
+
+    private record Moments(double mean, double variance, long samples) {
+        Moments update(double sample, double alpha) {
+            if (samples == 0) {
+                // One sample says nothing about the spread: replace the prior's mean, keep its relative spread
+                return new Moments(sample, Math.pow(sample * PRIOR_SPREAD, 2), 1);
+            }
+            // The first samples get a larger weight so a queue moves off the prior quickly
+            double weight = Math.max(alpha, 1.0 / (samples + 1));
+            double diff = sample - mean;
+            double increment = weight * diff;
+            return new Moments(mean + increment, (1 - weight) * (variance + diff * increment), samples + 1);
+        }
+    }
+}
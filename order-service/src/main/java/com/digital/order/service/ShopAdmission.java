@@ -0,0 +1,189 @@
+package com.digital.order.service;
+
+import com.digital.order.event.QueueEntryAddedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for order intake: an order is only accepted while its shop has a free place
+ * in an ACTIVE queue, so orders that could never be queued are turned away before they cost a
+ * database write, an outbox row and a broker round trip.
+ * <p>
+ * Free places come from {@link ShopQueueIndex} minus the orders this instance accepted that have
+ * not reached a queue yet. Those in-flight orders are released by their entry event, or after
+ * order.admission.in-flight-ttl-ms when the order never made it (failed, cancelled, or queued by
+ * another instance). A shop that looks full is re-read from the database at most once per
+ * order.admission.recheck-ms, so a stale index does not keep rejecting after the queues drained.
+ * <p>
+ * Retry-After is the time the shop needs to serve the overflow, at the drain rate of its queues
+ * as learned by {@link ServiceTimeEstimator}: each queue serves one order per mean preparation time.
+ */
+@Component
+public class ShopAdmission {
+    private final ShopQueueIndex shopQueueIndex;
+    private final ServiceTimeEstimator serviceTimeEstimator;
+    private final boolean enabled;
+    private final long inFlightTtlNanos;
+    private final long recheckNanos;
+    private final long maxRetryAfterSeconds;
+    private final LongSupplier nanoClock;
+
+    private final Map<Long, Shop> shops = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ShopAdmission(ShopQueueIndex shopQueueIndex,
+                         ServiceTimeEstimator serviceTimeEstimator,
+                         @Value("${order.admission.enabled:true}") boolean enabled,
+                         @Value("${order.admission.in-flight-ttl-ms:10000}") long inFlightTtlMs,
+                         @Value("${order.admission.recheck-ms:1000}") long recheckMs,
+                         @Value("${order.admission.max-retry-after-seconds:300}") long maxRetryAfterSeconds) {
+        this(shopQueueIndex, serviceTimeEstimator, enabled, inFlightTtlMs, recheckMs, maxRetryAfterSeconds, System::nanoTime);
+    }
+
+    ShopAdmission(ShopQueueIndex shopQueueIndex, ServiceTimeEstimator serviceTimeEstimator, boolean enabled,
+                  long inFlightTtlMs, long recheckMs, long maxRetryAfterSeconds, LongSupplier nanoClock) {
+        this.shopQueueIndex = shopQueueIndex;
+        this.serviceTimeEstimator = serviceTimeEstimator;
+        this.enabled = enabled;
+        this.inFlightTtlNanos = TimeUnit.MILLISECONDS.toNanos(inFlightTtlMs);
+        this.recheckNanos = TimeUnit.MILLISECONDS.toNanos(recheckMs);
+        this.maxRetryAfterSeconds = maxRetryAfterSeconds;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Accepts one order for the shop or throws 429 TOO_MANY_REQUESTS with a Retry-After header.
+     */
+    public void admit(Long shopId) {
+        Admission admission = tryAdmit(shopId);
+        if (!admission.admitted()) {
+            throw new ShopSaturatedException(shopId, admission.retryAfterSeconds());
+        }
+    }
+
+    /**
+     * Counts one in-flight order against the shop if it has a free place; otherwise reports how
+     * long the client should wait before trying again.
+     */
+    public Admission tryAdmit(Long shopId) {
+        if (!enabled || shopId == null) {
+            return Admission.ACCEPTED;
+        }
+        Shop shop = shops.computeIfAbsent(shopId, id -> new Shop(nanoClock.getAsLong() - recheckNanos));
+        shop.lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            shop.expire(now - inFlightTtlNanos);
+
+            ShopQueueIndex.Occupancy occupancy = shopQueueIndex.occupancy(shopId);
+            if (occupancy.free() <= shop.inFlight.size() && now - shop.reloadedAt >= recheckNanos) {
+                shopQueueIndex.reload(shopId);
+                shop.reloadedAt = now;
+                occupancy = shopQueueIndex.occupancy(shopId);
+            }
+            if (occupancy.free() > shop.inFlight.size()) {
+                shop.inFlight.addLast(now);
+                return Admission.ACCEPTED;
+            }
+            int overflow = shop.inFlight.size() + 1 - occupancy.free();
+            return new Admission(false, retryAfterSeconds(occupancy, overflow));
+        } finally {
+            shop.lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a place taken by {@link #tryAdmit} for an order that was not created after all.
+     */
+    public void release(Long shopId) {
+        withShop(shopId, shop -> shop.inFlight.pollLast());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryAdded(QueueEntryAddedEvent event) {
+        // Now counted by the index itself
+        withShop(event.shopId(), shop -> shop.inFlight.pollFirst());
+    }
+
+    private long retryAfterSeconds(ShopQueueIndex.Occupancy occupancy, int overflow) {
+        double ordersPerSecond = occupancy.queueIds().stream()
+                .mapToDouble(queueId -> 1 / serviceTimeEstimator.preparationTime(queueId).meanSeconds())
+                .sum();
+        if (ordersPerSecond <= 0) {
+            // No active queue drains the shop, so there is no better estimate than the cap
+            return maxRetryAfterSeconds;
+        }
+        long seconds = (long) Math.ceil(overflow / ordersPerSecond);
+        return Math.max(1, Math.min(seconds, maxRetryAfterSeconds));
+    }
+
+    private void withShop(Long shopId, Consumer<Shop> update) {
+        Shop shop = shopId == null ? null : shops.get(shopId);
+        if (shop == null) {
+            return;
+        }
+        shop.lock.lock();
+        try {
+            update.accept(shop);
+        } finally {
+            shop.lock.unlock();
+        }
+    }
+
+    public record Admission(boolean admitted, long retryAfterSeconds) {
+        static final Admission ACCEPTED = new Admission(true, 0);
+    }
+
+    private static final class Shop {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Deque<Long> inFlight = new ArrayDeque<>(); // admission times, oldest first
+        private long reloadedAt;
+
+        Shop(long reloadedAt) {
+            this.reloadedAt = reloadedAt;
+        }
+
+        void expire(long cutoff) {
+            while (!inFlight.isEmpty() && inFlight.peekFirst() - cutoff < 0) {
+                inFlight.pollFirst();
+            }
+        }
+    }
+
+    /**
+     * 429 for a saturated shop, carrying Retry-After in seconds.
+     */
+    public static class ShopSaturatedException extends ResponseStatusException {
+        private final long retryAfterSeconds;
+
+        public ShopSaturatedException(Long shopId, long retryAfterSeconds) {
+            super(HttpStatus.TOO_MANY_REQUESTS, "Shop " + shopId + " has no free place in its queues");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.digital.order.service;
+
+import com.digital.order.model.Queue;
+import com.digital.order.repository.QueueRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Per-shop gauges over the ACTIVE queues, refreshed from one query every order.metrics.shop-refresh-ms:
+ * waiting orders, utilization (waiting / capacity) and the p50/p90 wait a new order would get in the
+ * shortest queue with room. Tagged by shop only, so there is one series per shop and metric.
+ */
+@Component
+public class ShopMetrics {
+    private final QueueRepository queueRepository;
+    private final ServiceTimeEstimator serviceTimeEstimator;
+    private final MultiGauge depth;
+    private final MultiGauge utilization;
+    private final MultiGauge waitP50;
+    private final MultiGauge waitP90;
+
+    public ShopMetrics(QueueRepository queueRepository, ServiceTimeEstimator serviceTimeEstimator, MeterRegistry registry) {
+        this.queueRepository = queueRepository;
+        this.serviceTimeEstimator = serviceTimeEstimator;
+        this.depth = MultiGauge.builder("order.shop.queue.depth")
+                .description("Orders waiting in the shop's active queues").baseUnit("orders").register(registry);
+        this.utilization = MultiGauge.builder("order.shop.queue.utilization")
+                .description("Waiting orders over the capacity of the shop's active queues").register(registry);
+        this.waitP50 = MultiGauge.builder("order.shop.wait.p50")
+                .description("Estimated median wait for a new order").baseUnit("seconds").register(registry);
+        this.waitP90 = MultiGauge.builder("order.shop.wait.p90")
+                .description("Estimated 90th percentile wait for a new order").baseUnit("seconds").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.metrics.shop-refresh-ms:15000}")
+    public void refresh() {
+        Map<Long, List<Queue>> shops = queueRepository.findByStatus(Queue.QueueStatus.ACTIVE).stream()
+                .filter(queue -> queue.getShopId() != null)
+                .collect(Collectors.groupingBy(Queue::getShopId));
+
+        List<MultiGauge.Row<?>> depthRows = new ArrayList<>();
+        List<MultiGauge.Row<?>> utilizationRows = new ArrayList<>();
+        List<MultiGauge.Row<?>> p50Rows = new ArrayList<>();
+        List<MultiGauge.Row<?>> p90Rows = new ArrayList<>();
+        shops.forEach((shopId, queues) -> {
+            Tags tags = Tags.of("shop", String.valueOf(shopId));
+            long waiting = queues.stream().mapToLong(Queue::getCurrentSize).sum();
+            long capacity = queues.stream().mapToLong(Queue::getMaxSize).sum();
+            depthRows.add(MultiGauge.Row.of(tags, waiting));
+            utilizationRows.add(MultiGauge.Row.of(tags, capacity == 0 ? 0.0 : (double) waiting / capacity));
+
+            queues.stream()
+                    .filter(queue -> queue.getCurrentSize() < queue.getMaxSize())
+                    .map(queue -> serviceTimeEstimator.estimate(queue.getId(), queue.getCurrentSize() + 1))
+                    .min(Comparator.comparingDouble(ServiceTimeEstimator.WaitEstimate::p50Seconds))
+                    .ifPresent(wait -> {
+                        p50Rows.add(MultiGauge.Row.of(tags, wait.p50Seconds()));
+                        p90Rows.add(MultiGauge.Row.of(tags, wait.p90Seconds()));
+                    });
+        });
+
+        // Overwrite, so shops whose queues were closed or removed drop out
+        depth.register(depthRows, true);
+        utilization.register(utilizationRows, true);
+        waitP50.register(p50Rows, true);
+        waitP90.register(p90Rows, true);
+    }
+}
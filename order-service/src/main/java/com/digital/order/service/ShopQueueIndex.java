@@ -0,0 +1,198 @@
+package com.digital.order.service;
+
+import com.digital.order.event.QueueEntryAddedEvent;
+import com.digital.order.event.QueueEntryRemovedEvent;
+import com.digital.order.event.QueueUpdatedEvent;
+import com.digital.order.model.Queue;
+import com.digital.order.repository.QueueRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Per-shop index of the ACTIVE queues that still have room, ordered by current size, so the
+ * shortest queue is found in O(log k) without reading the queues table.
+ * <p>
+ * A shop is loaded from the database the first time it is asked for and is then kept in sync by
+ * queue events. The index only steers selection: the ticket claim in the database stays the
+ * authority on capacity. A failed claim releases its reservation, and a shop with no claimable
+ * queue is reloaded.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShopQueueIndex {
+    private final QueueRepository queueRepository;
+
+    private final Map<Long, ShopQueues> shops = new ConcurrentHashMap<>();
+
+    /**
+     * Picks the shop's shortest queue with room and counts one pending order against it,
+     * so concurrent assignments spread over the shop's queues.
+     */
+    public Optional<Long> reserve(Long shopId) {
+        return shop(shopId).reserve();
+    }
+
+    /**
+     * Gives back a place counted by {@link #reserve} whose ticket claim did not go through. A reload
+     * in between may already have dropped the reservation; the next queue event corrects the size then.
+     */
+    public void release(Long shopId, Long queueId) {
+        ifLoaded(shopId, shop -> shop.release(queueId));
+    }
+
+    /**
+     * Waiting orders and capacity summed over the shop's ACTIVE queues, including orders reserved
+     * but not yet confirmed by an entry event.
+     */
+    public Occupancy occupancy(Long shopId) {
+        return shop(shopId).occupancy();
+    }
+
+    public void reload(Long shopId) {
+        load(shopId, queueRepository.findByShopId(shopId));
+    }
+
+    public void load(Long shopId, List<Queue> queues) {
+        ShopQueues shop = new ShopQueues();
+        queues.forEach(queue -> shop.put(queue.getId(), queue.getStatus(), queue.getMaxSize(), queue.getCurrentSize()));
+        shops.put(shopId, shop);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryAdded(QueueEntryAddedEvent event) {
+        ifLoaded(event.shopId(), shop -> shop.resize(event.queueId(), event.queueSize()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryRemoved(QueueEntryRemovedEvent event) {
+        ifLoaded(event.shopId(), shop -> shop.resize(event.queueId(), event.queueSize()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueUpdated(QueueUpdatedEvent event) {
+        ifLoaded(event.shopId(), shop -> shop.put(event.queueId(), event.status(), event.maxSize(), event.currentSize()));
+    }
+
+    private ShopQueues shop(Long shopId) {
+        ShopQueues shop = shops.get(shopId);
+        if (shop == null) {
+            load(shopId, queueRepository.findByShopId(shopId));
+            shop = shops.get(shopId);
+        }
+        return shop;
+    }
+
+    private void ifLoaded(Long shopId, Consumer<ShopQueues> update) {
+        ShopQueues shop = shops.get(shopId);
+        if (shop != null) {
+            update.accept(shop);
+        }
+    }
+
+    public record Occupancy(int waiting, int capacity, List<Long> queueIds) {
+        public int free() {
+            return Math.max(capacity - waiting, 0);
+        }
+    }
+
+    private record Slot(Long queueId, Queue.QueueStatus status, int maxSize, int size) {
+        boolean hasRoom() {
+            return status == Queue.QueueStatus.ACTIVE && size < maxSize;
+        }
+    }
+
+    private static final class ShopQueues {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, Slot> slots = new HashMap<>();
+        private final TreeSet<Slot> available = new TreeSet<>(
+                Comparator.comparingInt(Slot::size).thenComparing(Slot::queueId));
+
+        Optional<Long> reserve() {
+            lock.lock();
+            try {
+                if (available.isEmpty()) {
+                    return Optional.empty();
+                }
+                Slot shortest = available.first();
+                replace(new Slot(shortest.queueId(), shortest.status(), shortest.maxSize(), shortest.size() + 1));
+                return Optional.of(shortest.queueId());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(Long queueId) {
+            lock.lock();
+            try {
+                Slot slot = slots.get(queueId);
+                if (slot != null && slot.size() > 0) {
+                    replace(new Slot(queueId, slot.status(), slot.maxSize(), slot.size() - 1));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Occupancy occupancy() {
+            lock.lock();
+            try {
+                int waiting = 0;
+                int capacity = 0;
+                List<Long> queueIds = new ArrayList<>();
+                for (Slot slot : slots.values()) {
+                    if (slot.status() == Queue.QueueStatus.ACTIVE) {
+                        waiting += Math.min(slot.size(), slot.maxSize());
+                        capacity += slot.maxSize();
+                        queueIds.add(slot.queueId());
+                    }
+                }
+                return new Occupancy(waiting, capacity, queueIds);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(Long queueId, Queue.QueueStatus status, int maxSize, int size) {
+            lock.lock();
+            try {
+                replace(new Slot(queueId, status, maxSize, size));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void resize(Long queueId, int size) {
+            lock.lock();
+            try {
+                Slot slot = slots.get(queueId);
+                if (slot != null) {
+                    replace(new Slot(queueId, slot.status(), slot.maxSize(), size));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void replace(Slot slot) {
+            Slot previous = slots.put(slot.queueId(), slot);
+            if (previous != null) {
+                available.remove(previous);
+            }
+            if (slot.hasRoom()) {
+                available.add(slot);
+            }
+        }
+    }
+}
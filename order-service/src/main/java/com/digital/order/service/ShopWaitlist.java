@@ -0,0 +1,117 @@
+package com.digital.order.service;
+
+import com.digital.order.event.QueueEntryRemovedEvent;
+import com.digital.order.event.QueueUpdatedEvent;
+import com.digital.order.model.Order;
+import com.digital.order.model.OrderWaitlist;
+import com.digital.order.model.Queue;
+import com.digital.order.repository.OrderRepository;
+import com.digital.order.repository.OrderWaitlistRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+/**
+ * Admits waitlisted orders (see {@link QueueService#assignOrWaitlist}) into their shop's queues, oldest
+ * first, whenever a place may have freed up: an entry left a queue, or a queue was created or reactivated.
+ * There is no polling; each event tries the head of the shop's waitlist until an order does not fit.
+ * <p>
+ * Each admission is its own transaction that locks the head entry with SKIP LOCKED, claims a ticket and
+ * deletes the entry, so a failed claim leaves the entry in place and instances never admit the same order twice.
+ * Orders that left IN_QUEUE while waiting (cancelled) are dropped from the waitlist when they reach the head.
+ */
+@Component
+@Slf4j
+public class ShopWaitlist {
+    private final OrderWaitlistRepository waitlistRepository;
+    private final OrderRepository orderRepository;
+    private final QueueService queueService;
+    private final TransactionTemplate transactionTemplate;
+    private final int admitBatchSize;
+
+    public ShopWaitlist(OrderWaitlistRepository waitlistRepository,
+                        OrderRepository orderRepository,
+                        QueueService queueService,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${order.waitlist.admit-batch-size:50}") int admitBatchSize) {
+        this.waitlistRepository = waitlistRepository;
+        this.orderRepository = orderRepository;
+        this.queueService = queueService;
+        // Runs from after-commit listeners, where the finished transaction's resources are still bound
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.admitBatchSize = admitBatchSize;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntryRemoved(QueueEntryRemovedEvent event) {
+        admit(event.shopId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueUpdated(QueueUpdatedEvent event) {
+        if (event.status() == Queue.QueueStatus.ACTIVE && event.currentSize() < event.maxSize()) {
+            admit(event.shopId());
+        }
+    }
+
+    /**
+     * Places the shop's waitlisted orders oldest first, up to order.waitlist.admit-batch-size per call,
+     * and returns how many were placed.
+     */
+    public int admit(Long shopId) {
+        if (shopId == null) {
+            return 0;
+        }
+        int placed = 0;
+        try {
+            for (int i = 0; i < admitBatchSize; i++) {
+                Outcome outcome = transactionTemplate.execute(status -> admitHead(shopId));
+                if (outcome == Outcome.EMPTY || outcome == Outcome.FULL) {
+                    break;
+                }
+                if (outcome == Outcome.PLACED) {
+                    placed++;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to admit waitlisted orders of shop {}", shopId, e);
+        }
+        if (placed > 0) {
+            log.info("Admitted {} waitlisted orders into queues of shop {}", placed, shopId);
+        }
+        return placed;
+    }
+
+    private Outcome admitHead(Long shopId) {
+        Optional<OrderWaitlist> head = waitlistRepository.lockHead(shopId);
+        if (head.isEmpty()) {
+            return Outcome.EMPTY;
+        }
+        OrderWaitlist entry = head.get();
+        Optional<Order> order = orderRepository.findById(entry.getOrderId())
+                .filter(waiting -> waiting.getStatus() == Order.OrderStatus.IN_QUEUE);
+        if (order.isEmpty()) {
+            waitlistRepository.delete(entry);
+            return Outcome.DROPPED;
+        }
+        if (queueService.tryAssignOrderToQueue(shopId, order.get()).isEmpty()) {
+            return Outcome.FULL;
+        }
+        waitlistRepository.delete(entry);
+        return Outcome.PLACED;
+    }
+
+    private enum Outcome {
+        EMPTY,
+        FULL,
+        DROPPED,
+        PLACED
+    }
+}
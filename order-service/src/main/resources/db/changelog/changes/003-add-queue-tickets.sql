@@ -0,0 +1,18 @@
+--liquibase formatted sql
+
+--changeset hieuhatrung:006
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS shop_id BIGINT;
+
+--changeset hieuhatrung:007
+ALTER TABLE queues ADD COLUMN next_ticket BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE queue_orders ADD COLUMN ticket BIGINT;
+UPDATE queue_orders SET ticket = position;
+UPDATE queues q SET next_ticket = COALESCE((SELECT MAX(qo.ticket) FROM queue_orders qo WHERE qo.queue_id = q.id), 0);
+ALTER TABLE queue_orders ALTER COLUMN ticket SET NOT NULL;
+
+--changeset hieuhatrung:008
+CREATE UNIQUE INDEX idx_queue_orders_queue_ticket ON queue_orders(queue_id, ticket);
+
+--rollback DROP INDEX idx_queue_orders_queue_ticket;
+--rollback ALTER TABLE queue_orders DROP COLUMN ticket;
+--rollback ALTER TABLE queues DROP COLUMN next_ticket;
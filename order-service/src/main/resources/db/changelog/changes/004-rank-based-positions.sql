@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset hieuhatrung:009
+-- Positions are derived from ticket rank on read, so the stored column is no longer maintained
+ALTER TABLE queue_orders DROP COLUMN position;
+
+--rollback ALTER TABLE queue_orders ADD COLUMN position INT NOT NULL DEFAULT 0;
@@ -0,0 +1,37 @@
+--liquibase formatted sql
+
+--changeset hieuhatrung:010
+-- Pooled sequences let Hibernate hand out ids from memory and batch inserts; IDENTITY forces a round trip per row.
+-- Each sequence starts past the current max id so the first pooled block cannot collide with existing rows.
+CREATE SEQUENCE IF NOT EXISTS orders_seq INCREMENT BY 50;
+SELECT setval('orders_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM orders));
+CREATE SEQUENCE IF NOT EXISTS queues_seq INCREMENT BY 50;
+SELECT setval('queues_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM queues));
+CREATE SEQUENCE IF NOT EXISTS queue_orders_seq INCREMENT BY 50;
+SELECT setval('queue_orders_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM queue_orders));
+
+--rollback DROP SEQUENCE orders_seq;
+--rollback DROP SEQUENCE queues_seq;
+--rollback DROP SEQUENCE queue_orders_seq;
+
+--changeset hieuhatrung:011
+-- Plain JDBC inserts still rely on the column default; pointing it at the pooled sequence keeps both id sources disjoint
+ALTER TABLE orders ALTER COLUMN id SET DEFAULT nextval('orders_seq');
+ALTER SEQUENCE orders_seq OWNED BY orders.id;
+DROP SEQUENCE IF EXISTS orders_id_seq;
+ALTER TABLE queues ALTER COLUMN id SET DEFAULT nextval('queues_seq');
+ALTER SEQUENCE queues_seq OWNED BY queues.id;
+DROP SEQUENCE IF EXISTS queues_id_seq;
+ALTER TABLE queue_orders ALTER COLUMN id SET DEFAULT nextval('queue_orders_seq');
+ALTER SEQUENCE queue_orders_seq OWNED BY queue_orders.id;
+DROP SEQUENCE IF EXISTS queue_orders_id_seq;
+
+--rollback CREATE SEQUENCE orders_id_seq OWNED BY orders.id;
+--rollback SELECT setval('orders_id_seq', (SELECT COALESCE(MAX(id), 1) FROM orders));
+--rollback ALTER TABLE orders ALTER COLUMN id SET DEFAULT nextval('orders_id_seq');
+--rollback CREATE SEQUENCE queues_id_seq OWNED BY queues.id;
+--rollback SELECT setval('queues_id_seq', (SELECT COALESCE(MAX(id), 1) FROM queues));
+--rollback ALTER TABLE queues ALTER COLUMN id SET DEFAULT nextval('queues_id_seq');
+--rollback CREATE SEQUENCE queue_orders_id_seq OWNED BY queue_orders.id;
+--rollback SELECT setval('queue_orders_id_seq', (SELECT COALESCE(MAX(id), 1) FROM queue_orders));
+--rollback ALTER TABLE queue_orders ALTER COLUMN id SET DEFAULT nextval('queue_orders_id_seq');
@@ -0,0 +1,17 @@
+--liquibase formatted sql
+
+--changeset hieuhatrung:012
+-- Messages written in the order's transaction and published by the relay; rows are deleted once the broker confirms them
+CREATE TABLE order_outbox (
+    id BIGINT PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    exchange VARCHAR(255) NOT NULL,
+    routing_key VARCHAR(255) NOT NULL,
+    content_type VARCHAR(100) NOT NULL,
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+CREATE SEQUENCE order_outbox_seq INCREMENT BY 50 OWNED BY order_outbox.id;
+ALTER TABLE order_outbox ALTER COLUMN id SET DEFAULT nextval('order_outbox_seq');
+
+--rollback DROP TABLE order_outbox;
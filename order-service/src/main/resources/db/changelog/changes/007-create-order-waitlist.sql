@@ -0,0 +1,15 @@
+--liquibase formatted sql
+
+--changeset hieuhatrung:013
+-- Orders no ACTIVE queue of their shop had room for; admitted oldest first when a place frees up
+CREATE TABLE order_waitlist (
+    id BIGINT PRIMARY KEY,
+    order_id BIGINT NOT NULL UNIQUE,
+    shop_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+CREATE SEQUENCE order_waitlist_seq INCREMENT BY 50 OWNED BY order_waitlist.id;
+ALTER TABLE order_waitlist ALTER COLUMN id SET DEFAULT nextval('order_waitlist_seq');
+CREATE INDEX idx_order_waitlist_shop ON order_waitlist (shop_id, created_at, id);
+
+--rollback DROP TABLE order_waitlist;
@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset hieuhatrung:014
+-- Cancelled entries are tombstoned in place and deleted in batches by QueueCompactor; ranks only count live entries
+ALTER TABLE queue_orders ADD COLUMN cancelled_at TIMESTAMP;
+CREATE INDEX idx_queue_orders_live ON queue_orders(queue_id, ticket) WHERE cancelled_at IS NULL;
+CREATE INDEX idx_queue_orders_tombstones ON queue_orders(id) WHERE cancelled_at IS NOT NULL;
+-- Open orders of a shop, so cancelling all of them does not scan the orders table
+CREATE INDEX idx_orders_shop_open ON orders(shop_id) WHERE status IN ('CREATED', 'IN_QUEUE');
+
+--rollback DROP INDEX idx_orders_shop_open;
+--rollback DROP INDEX idx_queue_orders_tombstones;
+--rollback DROP INDEX idx_queue_orders_live;
+--rollback ALTER TABLE queue_orders DROP COLUMN cancelled_at;
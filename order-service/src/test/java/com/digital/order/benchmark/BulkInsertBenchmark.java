@@ -0,0 +1,132 @@
+package com.digital.order.benchmark;
+
+import com.digital.order.dto.QueueRequest;
+import com.digital.order.model.Order;
+import com.digital.order.model.Queue;
+import com.digital.order.model.QueueOrder;
+import com.digital.order.repository.OrderRepository;
+import com.digital.order.repository.QueueOrderRepository;
+import com.digital.order.service.QueueService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares row-at-a-time inserts that read back a database-generated id (what IDENTITY forces on
+ * Hibernate) with batched saveAll on pooled sequence ids, for bulk order intake and for queue_orders.
+ * Needs Postgres: mvn test -Pbenchmark
+ */
+@SpringBootTest
+@Tag("benchmark")
+@Slf4j
+class BulkInsertBenchmark {
+	private static final int ROWS = 2_000;
+	private static final int ROUNDS = 3;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private QueueOrderRepository queueOrderRepository;
+
+	@Autowired
+	private QueueService queueService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void batchedOrderIntakeOutrunsRowAtATimeInserts() {
+		long shopId = System.currentTimeMillis();
+		double rowAtATime = best(() -> transactionTemplate.executeWithoutResult(status -> {
+			for (Order order : newOrders(shopId)) {
+				order.setId(jdbcTemplate.queryForObject(
+						"INSERT INTO orders (customer_name, order_details, order_time, status, shop_id) VALUES (?, ?, ?, ?, ?) RETURNING id",
+						Long.class, order.getCustomerName(), order.getOrderDetails(),
+						Timestamp.valueOf(order.getOrderTime()), order.getStatus().name(), order.getShopId()));
+			}
+		}));
+		double batched = best(() -> transactionTemplate.executeWithoutResult(
+				status -> orderRepository.saveAll(newOrders(shopId))));
+
+		log.info("orders: rowAtATime={} rows/s batched={} rows/s", rate(rowAtATime), rate(batched));
+		assertThat(batched).isLessThan(rowAtATime);
+	}
+
+	@Test
+	void batchedQueueOrderInsertsOutrunRowAtATimeInserts() {
+		QueueRequest request = new QueueRequest();
+		request.setShopId(System.currentTimeMillis());
+		request.setName("bulk-insert-benchmark");
+		request.setMaxSize(Integer.MAX_VALUE);
+		Queue queue = queueService.createQueue(request);
+
+		long[] ticket = {0};
+		double rowAtATime = best(() -> {
+			List<Order> orders = orderRepository.saveAll(newOrders(queue.getShopId()));
+			transactionTemplate.executeWithoutResult(status -> {
+				for (Order order : orders) {
+					jdbcTemplate.queryForObject(
+							"INSERT INTO queue_orders (queue_id, order_id, ticket, entry_time) VALUES (?, ?, ?, now()) RETURNING id",
+							Long.class, queue.getId(), order.getId(), ++ticket[0]);
+				}
+			});
+		});
+		double batched = best(() -> {
+			List<Order> orders = orderRepository.saveAll(newOrders(queue.getShopId()));
+			List<QueueOrder> entries = new ArrayList<>();
+			for (Order order : orders) {
+				QueueOrder entry = new QueueOrder();
+				entry.setQueue(queue);
+				entry.setOrder(order);
+				entry.setTicket(++ticket[0]);
+				entries.add(entry);
+			}
+			transactionTemplate.executeWithoutResult(status -> queueOrderRepository.saveAll(entries));
+		});
+
+		log.info("queue_orders: rowAtATime={} rows/s batched={} rows/s", rate(rowAtATime), rate(batched));
+		assertThat(batched).isLessThan(rowAtATime);
+	}
+
+	private double best(Runnable round) {
+		double best = Double.MAX_VALUE;
+		for (int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			round.run();
+			best = Math.min(best, (System.nanoTime() - start) / 1_000_000.0);
+		}
+		return best;
+	}
+
+	private String rate(double millis) {
+		return String.format("%.0f", ROWS / (millis / 1_000.0));
+	}
+
+	private List<Order> newOrders(long shopId) {
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			Order order = new Order();
+			order.setCustomerName("benchmark-" + i);
+			order.setOrderTime(LocalDateTime.now());
+			order.setStatus(Order.OrderStatus.CREATED);
+			order.setShopId(shopId);
+			orders.add(order);
+		}
+		return orders;
+	}
+}
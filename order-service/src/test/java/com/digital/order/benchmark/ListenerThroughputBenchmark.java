@@ -0,0 +1,104 @@
+package com.digital.order.benchmark;
+
+import com.digital.order.dto.QueueRequest;
+import com.digital.order.event.OrderCreatedEvent;
+import com.digital.order.listener.OrderBatchMessageListener;
+import com.digital.order.listener.OrderMessageListener;
+import com.digital.order.model.Order;
+import com.digital.order.repository.OrderRepository;
+import com.digital.order.service.OrderMetrics;
+import com.digital.order.service.OrderService;
+import com.digital.order.service.QueueService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Feeds the same number of order messages through the per-message and the batch listener, bypassing
+ * the broker, and compares orders per second. Needs Postgres: mvn test -Pbenchmark
+ */
+@SpringBootTest
+@Tag("benchmark")
+@Slf4j
+class ListenerThroughputBenchmark {
+	private static final int ORDERS = 2_000;
+	private static final int BATCH_SIZE = 100;
+	private static final int SHOPS = 4;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private QueueService queueService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private OrderMetrics orderMetrics;
+
+	@Test
+	void batchListenerProcessesSeveralTimesMoreOrdersPerSecond() {
+		long firstShop = System.currentTimeMillis();
+
+		OrderMessageListener single = new OrderMessageListener(orderService, queueService, orderMetrics);
+		List<Order> singleOrders = newOrders(firstShop);
+		long start = System.nanoTime();
+		for (Order order : singleOrders) {
+			transactionTemplate.executeWithoutResult(status -> single.processOrder(OrderCreatedEvent.of(order)));
+		}
+		double singleRate = ORDERS / ((System.nanoTime() - start) / 1e9);
+
+		OrderBatchMessageListener batch = new OrderBatchMessageListener(orderService, queueService, orderMetrics);
+		List<Order> batchOrders = newOrders(firstShop + SHOPS);
+		start = System.nanoTime();
+		for (int from = 0; from < ORDERS; from += BATCH_SIZE) {
+			List<OrderCreatedEvent> chunk = batchOrders.subList(from, Math.min(from + BATCH_SIZE, ORDERS)).stream()
+					.map(OrderCreatedEvent::of)
+					.toList();
+			transactionTemplate.executeWithoutResult(status -> batch.processOrders(chunk));
+		}
+		double batchRate = ORDERS / ((System.nanoTime() - start) / 1e9);
+
+		log.info("listener throughput: single={} orders/s batch={} orders/s",
+				String.format("%.0f", singleRate), String.format("%.0f", batchRate));
+		assertThat(orderRepository.findAllById(batchOrders.stream().map(Order::getId).toList()))
+				.allMatch(order -> order.getStatus() == Order.OrderStatus.IN_QUEUE);
+		assertThat(batchRate).isGreaterThan(singleRate * 3);
+	}
+
+	private List<Order> newOrders(long firstShop) {
+		for (int shop = 0; shop < SHOPS; shop++) {
+			for (int q = 0; q < 2; q++) {
+				QueueRequest request = new QueueRequest();
+				request.setShopId(firstShop + shop);
+				request.setName("listener-benchmark-" + q);
+				request.setMaxSize(ORDERS);
+				queueService.createQueue(request);
+			}
+		}
+
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < ORDERS; i++) {
+			Order order = new Order();
+			order.setCustomerName("benchmark-" + i);
+			order.setOrderTime(LocalDateTime.now());
+			order.setStatus(Order.OrderStatus.CREATED);
+			order.setShopId(firstShop + i % SHOPS);
+			orders.add(order);
+		}
+		return orderRepository.saveAll(orders);
+	}
+}
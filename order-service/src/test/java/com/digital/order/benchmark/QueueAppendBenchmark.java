@@ -0,0 +1,79 @@
+package com.digital.order.benchmark;
+
+import com.digital.order.dto.QueueRequest;
+import com.digital.order.model.Order;
+import com.digital.order.model.Queue;
+import com.digital.order.repository.OrderRepository;
+import com.digital.order.service.QueueService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures enqueue latency while a single queue grows from 10 to 10,000 entries.
+ * Needs the Postgres instance from docker-compose: mvn test -Pbenchmark
+ */
+@SpringBootTest
+@Tag("benchmark")
+@Slf4j
+class QueueAppendBenchmark {
+	private static final int[] DEPTHS = {10, 100, 1_000, 10_000};
+	private static final int SAMPLES = 200;
+
+	@Autowired
+	private QueueService queueService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Test
+	void enqueueLatencyStaysFlatAsQueueDepthGrows() {
+		QueueRequest request = new QueueRequest();
+		request.setShopId(System.currentTimeMillis());
+		request.setName("append-benchmark");
+		request.setMaxSize(Integer.MAX_VALUE);
+		Queue queue = queueService.createQueue(request);
+
+		Map<Integer, Double> latencyMicros = new LinkedHashMap<>();
+		int depth = 0;
+		for (int targetDepth : DEPTHS) {
+			while (depth < targetDepth) {
+				queueService.addOrderToQueue(queue.getId(), newOrder(queue.getShopId()));
+				depth++;
+			}
+
+			long elapsed = 0;
+			for (int i = 0; i < SAMPLES; i++) {
+				Order order = newOrder(queue.getShopId());
+				long start = System.nanoTime();
+				queueService.addOrderToQueue(queue.getId(), order);
+				elapsed += System.nanoTime() - start;
+			}
+			depth += SAMPLES;
+			latencyMicros.put(targetDepth, elapsed / 1_000.0 / SAMPLES);
+		}
+
+		latencyMicros.forEach((d, micros) -> log.info("depth={} avgEnqueue={}us", d, String.format("%.1f", micros)));
+
+		double shallow = latencyMicros.get(DEPTHS[0]);
+		double deep = latencyMicros.get(DEPTHS[DEPTHS.length - 1]);
+		assertThat(deep).isLessThan(shallow * 3);
+	}
+
+	private Order newOrder(Long shopId) {
+		Order order = new Order();
+		order.setCustomerName("benchmark");
+		order.setOrderTime(LocalDateTime.now());
+		order.setStatus(Order.OrderStatus.IN_QUEUE);
+		order.setShopId(shopId);
+		return orderRepository.save(order);
+	}
+}
@@ -0,0 +1,109 @@
+package com.digital.order.benchmark;
+
+import com.digital.order.dto.QueueRequest;
+import com.digital.order.model.Order;
+import com.digital.order.repository.OrderRepository;
+import com.digital.order.service.QueueService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers assignOrderToQueue for one shop from many threads and checks that no queue is overfilled
+ * and that every stored entry has a distinct ticket. Needs Postgres: mvn test -Pbenchmark
+ */
+@SpringBootTest
+@Tag("benchmark")
+@Slf4j
+class QueueAssignmentContentionBenchmark {
+	private static final int QUEUES = 4;
+	private static final int MAX_SIZE = 50;
+	private static final int THREADS = 32;
+	private static final int ORDERS = 400;
+
+	@Autowired
+	private QueueService queueService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void concurrentAssignmentsRespectCapacityAndTicketUniqueness() throws Exception {
+		long shopId = System.currentTimeMillis();
+		for (int i = 0; i < QUEUES; i++) {
+			QueueRequest request = new QueueRequest();
+			request.setShopId(shopId);
+			request.setName("contention-" + i);
+			request.setMaxSize(MAX_SIZE);
+			queueService.createQueue(request);
+		}
+
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < ORDERS; i++) {
+			Order order = new Order();
+			order.setCustomerName("contention");
+			order.setOrderTime(LocalDateTime.now());
+			order.setStatus(Order.OrderStatus.IN_QUEUE);
+			order.setShopId(shopId);
+			orders.add(orderRepository.save(order));
+		}
+
+		AtomicInteger placed = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (Order order : orders) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				try {
+					queueService.assignOrderToQueue(shopId, order);
+					placed.incrementAndGet();
+				} catch (RuntimeException e) {
+					rejected.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		executor.shutdown();
+		log.info("placed={} rejected={} throughput={} assignments/s", placed.get(), rejected.get(),
+				String.format("%.0f", ORDERS / seconds));
+
+		assertThat(placed.get()).isEqualTo(QUEUES * MAX_SIZE);
+		List<Map<String, Object>> queues = jdbcTemplate.queryForList(
+				"SELECT q.id, q.current_size, q.max_size, count(qo.id) AS entries, count(DISTINCT qo.ticket) AS tickets " +
+				"FROM queues q LEFT JOIN queue_orders qo ON qo.queue_id = q.id WHERE q.shop_id = ? " +
+				"GROUP BY q.id, q.current_size, q.max_size", shopId);
+		for (Map<String, Object> queue : queues) {
+			assertThat(((Number) queue.get("current_size")).intValue()).isEqualTo(MAX_SIZE);
+			assertThat(((Number) queue.get("entries")).intValue()).isEqualTo(MAX_SIZE);
+			assertThat(((Number) queue.get("tickets")).intValue()).isEqualTo(MAX_SIZE);
+		}
+	}
+}
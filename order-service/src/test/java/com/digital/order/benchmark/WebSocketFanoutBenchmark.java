@@ -0,0 +1,121 @@
+package com.digital.order.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load harness for the STOMP broker: opens 10k sessions, each subscribed to its own /topic/order.{id},
+ * makes 1% of them stop reading, and publishes rounds of order updates. Fast subscribers' delivery
+ * latency must stay flat across rounds, whatever the slow ones do.
+ * Needs Postgres (full context) and enough file descriptors: mvn test -Pbenchmark
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"server.tomcat.max-connections=20000", "server.tomcat.threads.max=400"})
+@Tag("benchmark")
+@Slf4j
+class WebSocketFanoutBenchmark {
+	private static final int SESSIONS = Integer.getInteger("benchmark.ws.sessions", 10_000);
+	private static final int SLOW_EVERY = 100;
+	private static final int ROUNDS = 5;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private SimpMessagingTemplate messagingTemplate;
+
+	@Test
+	void latencyStaysFlatWithSlowSubscribers() throws Exception {
+		WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+		client.setMessageConverter(new MappingJackson2MessageConverter());
+		client.setInboundMessageSizeLimit(64 * 1024);
+
+		ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+		List<StompSession> sessions = new ArrayList<>();
+		for (int from = 0; from < SESSIONS; from += 500) {
+			List<CompletableFuture<StompSession>> connecting = new ArrayList<>();
+			for (int i = from; i < Math.min(from + 500, SESSIONS); i++) {
+				connecting.add(client.connectAsync("ws://localhost:" + port + "/ws", new StompSessionHandlerAdapter() {
+				}));
+			}
+			for (int i = 0; i < connecting.size(); i++) {
+				StompSession session = connecting.get(i).get(30, TimeUnit.SECONDS);
+				int orderId = from + i;
+				session.subscribe("/topic/order." + orderId, new Subscriber(orderId % SLOW_EVERY == 0, latencies));
+				sessions.add(session);
+			}
+		}
+		log.info("Connected {} sessions", sessions.size());
+		Thread.sleep(1_000);
+
+		List<Long> p99Millis = new ArrayList<>();
+		for (int round = 0; round < ROUNDS; round++) {
+			latencies.clear();
+			for (int orderId = 0; orderId < SESSIONS; orderId++) {
+				messagingTemplate.convertAndSend("/topic/order." + orderId, Map.of("orderId", orderId, "sentNanos", System.nanoTime()));
+			}
+			long fastSubscribers = SESSIONS - (SESSIONS + SLOW_EVERY - 1) / SLOW_EVERY;
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+			while (latencies.size() < fastSubscribers && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+
+			List<Long> sorted = new ArrayList<>(latencies);
+			Collections.sort(sorted);
+			long p50 = TimeUnit.NANOSECONDS.toMillis(sorted.get(sorted.size() / 2));
+			long p99 = TimeUnit.NANOSECONDS.toMillis(sorted.get((int) (sorted.size() * 0.99)));
+			log.info("round={} delivered={} p50={}ms p99={}ms", round, sorted.size(), p50, p99);
+			assertThat(sorted.size()).isGreaterThanOrEqualTo((int) fastSubscribers);
+			p99Millis.add(p99);
+		}
+
+		sessions.forEach(StompSession::disconnect);
+		long first = Math.max(p99Millis.get(0), 50);
+		assertThat(p99Millis.get(ROUNDS - 1)).isLessThan(first * 3);
+	}
+
+	private record Subscriber(boolean slow, ConcurrentLinkedQueue<Long> latencies) implements StompFrameHandler {
+		@Override
+		public Type getPayloadType(StompHeaders headers) {
+			return Map.class;
+		}
+
+		@Override
+		public void handleFrame(StompHeaders headers, Object payload) {
+			if (slow) {
+				// Blocks this connection's reader, so the server sees a client that stopped reading
+				try {
+					Thread.sleep(60_000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return;
+			}
+			long sentNanos = ((Number) ((Map<?, ?>) payload).get("sentNanos")).longValue();
+			latencies.add(System.nanoTime() - sentNanos);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.digital.order.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConflatingWebSocketSessionTest {
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final WebSocketSession delegate = mock(WebSocketSession.class);
+	private final List<String> sent = new CopyOnWriteArrayList<>();
+	private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+	private final CountDownLatch releaseFirstSend = new CountDownLatch(1);
+	private final Timer notify = new SimpleMeterRegistry().timer("order.notify");
+
+	ConflatingWebSocketSessionTest() throws Exception {
+		when(delegate.getId()).thenReturn("s1");
+		// The first send blocks like a client that stopped reading
+		doAnswer(invocation -> {
+			firstSendStarted.countDown();
+			releaseFirstSend.await(5, TimeUnit.SECONDS);
+			sent.add(invocation.<TextMessage>getArgument(0).getPayload());
+			return null;
+		}).when(delegate).sendMessage(any(WebSocketMessage.class));
+	}
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void keepsOnlyTheLatestOrderFrameWhileTheClientIsBehind() throws Exception {
+		ConflatingWebSocketSession session = new ConflatingWebSocketSession(delegate, executor, 64, 10_000, notify, notify);
+
+		session.sendMessage(frame("/topic/order.1", "v1"));
+		assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+		session.sendMessage(frame("/topic/order.1", "v2"));
+		session.sendMessage(frame("/topic/queue.5", "d1"));
+		session.sendMessage(frame("/topic/order.1", "v3"));
+		session.sendMessage(frame("/topic/queue.5", "d2"));
+		assertThat(session.pendingCount()).isEqualTo(3);
+
+		releaseFirstSend.countDown();
+		verify(delegate, timeout(5_000).times(4)).sendMessage(any(WebSocketMessage.class));
+
+		assertThat(sent).extracting(ConflatingWebSocketSessionTest::body).containsExactly("v1", "v3", "d1", "d2");
+	}
+
+	@Test
+	void closesASessionThatFallsTooFarBehind() throws Exception {
+		ConflatingWebSocketSession session = new ConflatingWebSocketSession(delegate, executor, 2, 10_000, notify, notify);
+
+		session.sendMessage(frame("/topic/queue.5", "d1"));
+		assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+		session.sendMessage(frame("/topic/queue.5", "d2"));
+		session.sendMessage(frame("/topic/queue.5", "d3"));
+		session.sendMessage(frame("/topic/queue.5", "d4"));
+
+		verify(delegate, timeout(5_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+		releaseFirstSend.countDown();
+	}
+
+	private static TextMessage frame(String destination, String body) {
+		return new TextMessage("MESSAGE\ndestination:" + destination + "\nsubscription:sub-0\n\n" + body + "\u0000");
+	}
+
+	private static String body(String frame) {
+		return frame.substring(frame.indexOf("\n\n") + 2, frame.length() - 1);
+	}
+}
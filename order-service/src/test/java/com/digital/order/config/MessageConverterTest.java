@@ -0,0 +1,55 @@
+package com.digital.order.config;
+
+import com.digital.order.event.OrderCreatedEvent;
+import com.digital.order.model.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageConverterTest {
+	private final RabbitMQConfig config = new RabbitMQConfig();
+	private final OrderCreatedEvent event = new OrderCreatedEvent(OrderCreatedEvent.VERSION, 42L, 7L,
+			LocalDateTime.of(2024, 1, 1, 12, 0), Order.OrderStatus.CREATED);
+
+	@Test
+	void cborRoundTripsTheEventInFewerBytesThanJson() {
+		Message json = config.messageConverter("json").toMessage(event, new MessageProperties());
+		Message cbor = config.messageConverter("cbor").toMessage(event, new MessageProperties());
+
+		assertThat(cbor.getMessageProperties().getContentType()).isEqualTo(CborMessageConverter.CONTENT_TYPE);
+		assertThat(cbor.getBody().length).isLessThan(json.getBody().length);
+		assertThat(decode(config.messageConverter("json"), cbor)).isEqualTo(event);
+		assertThat(decode(config.messageConverter("cbor"), json)).isEqualTo(event);
+	}
+
+	@Test
+	void acceptsTheFullOrderPublishedBeforeTheEventExisted() {
+		Order order = new Order();
+		order.setId(42L);
+		order.setShopId(7L);
+		order.setCustomerName("Alice");
+		order.setOrderDetails("2x latte");
+		order.setOrderTime(LocalDateTime.of(2024, 1, 1, 12, 0));
+		order.setStatus(Order.OrderStatus.CREATED);
+		Message legacy = new Jackson2JsonMessageConverter().toMessage(order, new MessageProperties());
+
+		OrderCreatedEvent decoded = decode(config.messageConverter("json"), legacy);
+
+		assertThat(decoded.orderId()).isEqualTo(42L);
+		assertThat(decoded.shopId()).isEqualTo(7L);
+		assertThat(decoded.createdAt()).isEqualTo(order.getOrderTime());
+		assertThat(decoded.version()).isZero();
+	}
+
+	// The listener adapter passes the handler's parameter type the same way
+	private OrderCreatedEvent decode(MessageConverter converter, Message message) {
+		message.getMessageProperties().setInferredArgumentType(OrderCreatedEvent.class);
+		return (OrderCreatedEvent) converter.fromMessage(message);
+	}
+}
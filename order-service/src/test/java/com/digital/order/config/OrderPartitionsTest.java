@@ -0,0 +1,45 @@
+package com.digital.order.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderPartitionsTest {
+	private final OrderPartitions partitions = new OrderPartitions(4);
+
+	@Test
+	void routesEveryOrderOfAShopToTheSamePartition() {
+		for (long shopId = -50; shopId < 50; shopId++) {
+			int partition = partitions.partitionOf(shopId);
+			assertThat(partition).isBetween(0, 3);
+			assertThat(partitions.partitionOf(shopId)).isEqualTo(partition);
+			assertThat(partitions.routingKey(shopId)).isEqualTo(partitions.routingKey(partition));
+		}
+	}
+
+	@Test
+	void spreadsShopsEvenlyOverPartitions() {
+		Map<Integer, Integer> shopsPerPartition = new HashMap<>();
+		for (long shopId = 1; shopId <= 1_000; shopId++) {
+			shopsPerPartition.merge(partitions.partitionOf(shopId), 1, Integer::sum);
+		}
+
+		assertThat(shopsPerPartition).hasSize(4);
+		assertThat(shopsPerPartition.values()).allMatch(count -> count == 250);
+	}
+
+	@Test
+	void namesOneQueuePerPartition() {
+		assertThat(partitions.queueNames()).containsExactly("order_queue.0", "order_queue.1", "order_queue.2", "order_queue.3");
+		assertThat(partitions.partitionOf(null)).isZero();
+	}
+
+	@Test
+	void rejectsANonPositivePartitionCount() {
+		assertThatThrownBy(() -> new OrderPartitions(0)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,144 @@
+package com.digital.order.engine;
+
+import com.digital.order.model.Queue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class InMemoryQueueEngineStressTest {
+	private static final long SHOP_ID = 7L;
+	private static final int QUEUES = 4;
+	private static final int MAX_SIZE = 50;
+	private static final int THREADS = 32;
+	private static final int ORDERS_PER_THREAD = 25;
+
+	private final AtomicLong orderIds = new AtomicLong();
+	private InMemoryQueueEngine engine;
+	private ExecutorService threads;
+
+	@BeforeEach
+	void setUp() {
+		engine = new InMemoryQueueEngine(mock(JdbcTemplate.class), mock(QueueWriteBehind.class));
+		for (long id = 1; id <= QUEUES; id++) {
+			Queue queue = new Queue();
+			queue.setId(id);
+			queue.setShopId(SHOP_ID);
+			queue.setMaxSize(MAX_SIZE);
+			queue.setStatus(Queue.QueueStatus.ACTIVE);
+			queue.setNextTicket(0L);
+			engine.registerQueue(queue);
+		}
+		threads = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterEach
+	void tearDown() {
+		threads.shutdownNow();
+		engine.shutdown();
+	}
+
+	@Test
+	void concurrentAssignmentsFillEveryQueueExactlyOnceWithUniquePositions() throws Exception {
+		ConcurrentLinkedQueue<InMemoryQueueEngine.Placement> placements = new ConcurrentLinkedQueue<>();
+		ConcurrentLinkedQueue<String> rejections = new ConcurrentLinkedQueue<>();
+
+		runConcurrently(() -> {
+			for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+				try {
+					placements.add(engine.assign(SHOP_ID, orderIds.incrementAndGet()));
+				} catch (RuntimeException e) {
+					rejections.add(e.getMessage());
+				}
+			}
+		});
+
+		assertThat(placements).hasSize(QUEUES * MAX_SIZE);
+		assertThat(rejections).hasSize(THREADS * ORDERS_PER_THREAD - QUEUES * MAX_SIZE)
+				.containsOnly("Queue is full");
+
+		Map<Long, List<InMemoryQueueEngine.Placement>> byQueue = placements.stream()
+				.collect(Collectors.groupingBy(InMemoryQueueEngine.Placement::queueId));
+		List<Long> expected = LongStream.rangeClosed(1, MAX_SIZE).boxed().toList();
+		for (long queueId = 1; queueId <= QUEUES; queueId++) {
+			List<InMemoryQueueEngine.Placement> queuePlacements = byQueue.get(queueId);
+			assertThat(queuePlacements).extracting(InMemoryQueueEngine.Placement::ticket)
+					.containsExactlyInAnyOrderElementsOf(expected);
+			assertThat(queuePlacements).extracting(p -> (long) p.position())
+					.containsExactlyInAnyOrderElementsOf(expected);
+		}
+	}
+
+	@Test
+	void interleavedRemovalsKeepCapacityAndContiguousPositions() throws Exception {
+		Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+		runConcurrently(() -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			List<Long> mine = new ArrayList<>();
+			for (int i = 0; i < ORDERS_PER_THREAD * 4; i++) {
+				if (!mine.isEmpty() && random.nextInt(3) == 0) {
+					Long orderId = mine.remove(random.nextInt(mine.size()));
+					assertThat(engine.remove(orderId)).isPresent();
+					queued.remove(orderId);
+				} else {
+					long orderId = orderIds.incrementAndGet();
+					try {
+						engine.assign(SHOP_ID, orderId);
+						mine.add(orderId);
+						queued.add(orderId);
+					} catch (RuntimeException e) {
+						assertThat(e).hasMessage("Queue is full");
+					}
+				}
+			}
+		});
+
+		Map<Long, List<Integer>> positions = queued.stream()
+				.map(orderId -> engine.status(orderId).orElseThrow())
+				.collect(Collectors.groupingBy(InMemoryQueueEngine.Standing::queueId,
+						Collectors.mapping(InMemoryQueueEngine.Standing::position, Collectors.toList())));
+		for (Map.Entry<Long, List<Integer>> queue : positions.entrySet()) {
+			int size = engine.currentSize(queue.getKey()).orElseThrow();
+			assertThat(size).isLessThanOrEqualTo(MAX_SIZE);
+			assertThat(queue.getValue()).containsExactlyInAnyOrderElementsOf(
+					LongStream.rangeClosed(1, size).mapToObj(i -> (int) i).toList());
+		}
+		assertThat(positions.values().stream().mapToInt(List::size).sum()).isEqualTo(queued.size());
+	}
+
+	private void runConcurrently(Runnable worker) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(threads.submit(() -> {
+				start.await();
+				worker.run();
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+	}
+}
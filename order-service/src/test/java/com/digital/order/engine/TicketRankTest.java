@@ -0,0 +1,81 @@
+package com.digital.order.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketRankTest {
+
+	@Test
+	void rankCountsLiveTicketsUpToAndIncludingTheGivenOne() {
+		TicketRank ranks = new TicketRank();
+		for (long ticket = 1; ticket <= 5; ticket++) {
+			ranks.add(ticket);
+		}
+		ranks.remove(2);
+
+		assertThat(ranks.size()).isEqualTo(4);
+		assertThat(ranks.rank(1)).isEqualTo(1);
+		assertThat(ranks.rank(3)).isEqualTo(2);
+		assertThat(ranks.rank(5)).isEqualTo(4);
+	}
+
+	@Test
+	void matchesSortedSetWhileTheWindowSlides() {
+		TicketRank ranks = new TicketRank();
+		TreeSet<Long> expected = new TreeSet<>();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long next = 0;
+
+		for (int i = 0; i < 20_000; i++) {
+			if (expected.isEmpty() || random.nextInt(100) < 55) {
+				ranks.add(++next);
+				expected.add(next);
+			} else {
+				Long victim = random.nextBoolean() ? expected.first() : expected.ceiling(random.nextLong(1, next + 1));
+				if (victim == null) {
+					victim = expected.last();
+				}
+				ranks.remove(victim);
+				expected.remove(victim);
+			}
+			long probe = random.nextLong(1, next + 1);
+			assertThat(ranks.rank(probe)).isEqualTo(expected.headSet(probe, true).size());
+		}
+		assertThat(ranks.size()).isEqualTo(expected.size());
+	}
+
+	@Test
+	void memoryFollowsTheLiveTicketsNotTheTicketSpan() {
+		TicketRank ranks = new TicketRank();
+		// One order stays waiting while a million others pass through behind it
+		ranks.add(1);
+		for (long ticket = 2; ticket <= 1_000_000; ticket++) {
+			ranks.add(ticket);
+			if (ticket > 2) {
+				ranks.remove(ticket - 1);
+			}
+		}
+
+		assertThat(ranks.size()).isEqualTo(2);
+		assertThat(ranks.capacity()).isLessThanOrEqualTo(16);
+		assertThat(ranks.rank(1)).isEqualTo(1);
+		assertThat(ranks.rank(1_000_000)).isEqualTo(2);
+	}
+
+	@Test
+	void acceptsATicketOlderThanTheNewest() {
+		TicketRank ranks = new TicketRank();
+		ranks.add(10);
+		ranks.add(30);
+		ranks.add(20);
+
+		assertThat(ranks.rank(20)).isEqualTo(2);
+		assertThat(ranks.rank(30)).isEqualTo(3);
+		ranks.remove(20);
+		assertThat(ranks.rank(30)).isEqualTo(2);
+	}
+}
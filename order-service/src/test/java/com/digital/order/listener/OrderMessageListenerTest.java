@@ -0,0 +1,57 @@
+package com.digital.order.listener;
+
+import com.digital.order.event.OrderCreatedEvent;
+import com.digital.order.model.Order;
+import com.digital.order.service.OrderMetrics;
+import com.digital.order.service.OrderService;
+import com.digital.order.service.QueueService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderMessageListenerTest {
+	private final OrderService orderService = mock(OrderService.class);
+	private final QueueService queueService = mock(QueueService.class);
+	private final OrderMessageListener listener = new OrderMessageListener(orderService, queueService,
+			new OrderMetrics(new SimpleMeterRegistry()));
+
+	@AfterEach
+	void clearInterrupt() {
+		Thread.interrupted();
+	}
+
+	@Test
+	void acknowledgesARedeliveredOrderWithoutQueueingItAgain() {
+		when(orderService.updateOrderStatus(1L, Order.OrderStatus.IN_QUEUE))
+				.thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Order 1 cannot move from IN_QUEUE to IN_QUEUE"));
+
+		listener.processOrder(event(1L));
+
+		verify(queueService, never()).assignOrWaitlist(any(), any());
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+	}
+
+	@Test
+	void failureDoesNotSetTheInterruptFlag() {
+		when(orderService.updateOrderStatus(2L, Order.OrderStatus.IN_QUEUE)).thenThrow(new RuntimeException("Order not found"));
+
+		listener.processOrder(event(2L));
+
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+	}
+
+	private static OrderCreatedEvent event(Long orderId) {
+		return new OrderCreatedEvent(OrderCreatedEvent.VERSION, orderId, 7L, LocalDateTime.now(), Order.OrderStatus.CREATED);
+	}
+}
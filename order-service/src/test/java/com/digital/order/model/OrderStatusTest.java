@@ -0,0 +1,41 @@
+package com.digital.order.model;
+
+import org.junit.jupiter.api.Test;
+
+import static com.digital.order.model.Order.OrderStatus.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatusTest {
+
+	@Test
+	void followsTheOrderLifecycle() {
+		assertThat(CREATED.canTransitionTo(IN_QUEUE)).isTrue();
+		assertThat(IN_QUEUE.canTransitionTo(PROCESSING)).isTrue();
+		assertThat(PROCESSING.canTransitionTo(READY)).isTrue();
+		assertThat(IN_QUEUE.canTransitionTo(CANCELLED)).isTrue();
+	}
+
+	@Test
+	void rejectsSkippingAndGoingBack() {
+		assertThat(READY.canTransitionTo(IN_QUEUE)).isFalse();
+		assertThat(CREATED.canTransitionTo(READY)).isFalse();
+		assertThat(PROCESSING.canTransitionTo(IN_QUEUE)).isFalse();
+		assertThat(IN_QUEUE.canTransitionTo(IN_QUEUE)).isFalse();
+	}
+
+	@Test
+	void terminalStatusesHaveNoWayOut() {
+		for (Order.OrderStatus next : Order.OrderStatus.values()) {
+			assertThat(READY.canTransitionTo(next)).isFalse();
+			assertThat(CANCELLED.canTransitionTo(next)).isFalse();
+		}
+	}
+
+	@Test
+	void sourcesAreTheInverseOfTheTable() {
+		assertThat(Order.OrderStatus.sourcesOf(IN_QUEUE)).containsExactly(CREATED);
+		assertThat(Order.OrderStatus.sourcesOf(READY)).containsExactly(PROCESSING);
+		assertThat(Order.OrderStatus.sourcesOf(CANCELLED)).containsExactlyInAnyOrder(CREATED, IN_QUEUE, PROCESSING);
+		assertThat(Order.OrderStatus.sourcesOf(CREATED)).isEmpty();
+	}
+}
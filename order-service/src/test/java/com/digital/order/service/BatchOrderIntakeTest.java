@@ -0,0 +1,112 @@
+package com.digital.order.service;
+
+import com.digital.order.dto.BatchOrderResponse;
+import com.digital.order.dto.BatchOrderResult;
+import com.digital.order.dto.OrderRequest;
+import com.digital.order.model.OrderOutbox;
+import com.digital.order.repository.OrderOutboxRepository;
+import com.digital.order.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch intake against an embedded PostgreSQL: orders are inserted in JDBC batches on pooled sequence ids,
+ * each with its outbox row, and a row the database refuses only fails its own order. Publishing is left to the
+ * outbox relay, which does not poll here.
+ */
+@SpringBootTest(properties = {
+		"spring.rabbitmq.listener.simple.auto-startup=false",
+		"spring.rabbitmq.listener.direct.auto-startup=false",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"order.outbox.poll-interval-ms=3600000",
+		"order.admission.enabled=false"
+})
+class BatchOrderIntakeTest {
+	private static final int BATCH = 120;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private OrderOutboxRepository outboxRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@Test
+	void insertsTheBatchInJdbcBatchesOnPooledIds() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		BatchOrderResponse response = orderService.createOrders(requests(BATCH, -1));
+
+		assertThat(response.getAccepted()).isEqualTo(BATCH);
+		List<Long> ids = response.getResults().stream().map(BatchOrderResult::getOrderId).toList();
+		assertThat(ids).doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(orderRepository.findAllById(ids)).hasSize(BATCH);
+		assertThat(outboxOrderIds()).containsAll(ids);
+		// allocationSize 50 for orders and outbox rows alike: per table three nextval calls for 120 ids,
+		// and three INSERT batches of up to 50 rows
+		assertThat(statistics.getPrepareStatementCount()).isBetween(1L, 12L);
+	}
+
+	@Test
+	void savesTheRestOfTheBatchWhenOneOrderIsRefused() {
+		BatchOrderResponse response = orderService.createOrders(requests(5, 2));
+
+		assertThat(response.getAccepted()).isEqualTo(4);
+		assertThat(response.getResults()).extracting(BatchOrderResult::getOutcome).containsExactly(
+				BatchOrderResult.Outcome.ACCEPTED,
+				BatchOrderResult.Outcome.ACCEPTED,
+				BatchOrderResult.Outcome.SAVE_FAILED,
+				BatchOrderResult.Outcome.ACCEPTED,
+				BatchOrderResult.Outcome.ACCEPTED);
+		BatchOrderResult refused = response.getResults().get(2);
+		assertThat(refused.getOrderId()).isNull();
+		assertThat(refused.getError()).startsWith("Order could not be saved");
+
+		List<Long> ids = response.getResults().stream().map(BatchOrderResult::getOrderId).filter(id -> id != null).toList();
+		assertThat(orderRepository.findAllById(ids)).hasSize(4);
+		// Each order saved alone still got its outbox row in the same transaction
+		assertThat(outboxOrderIds()).containsAll(ids);
+	}
+
+	private List<Long> outboxOrderIds() {
+		return outboxRepository.findAll().stream().map(OrderOutbox::getOrderId).toList();
+	}
+
+	/**
+	 * Valid requests; the one at {@code refusedIndex} has a customer name longer than the column allows.
+	 */
+	private static List<OrderRequest> requests(int count, int refusedIndex) {
+		List<OrderRequest> requests = new ArrayList<>();
+		IntStream.range(0, count).forEach(i -> {
+			OrderRequest request = new OrderRequest();
+			request.setCustomerName(i == refusedIndex ? "x".repeat(300) : "customer " + i);
+			request.setOrderDetails("coffee");
+			request.setShopId(1L);
+			requests.add(request);
+		});
+		return requests;
+	}
+}
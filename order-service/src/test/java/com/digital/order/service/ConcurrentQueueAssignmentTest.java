@@ -0,0 +1,146 @@
+package com.digital.order.service;
+
+import com.digital.order.dto.QueueRequest;
+import com.digital.order.model.Order;
+import com.digital.order.model.Queue;
+import com.digital.order.model.QueueOrder;
+import com.digital.order.repository.OrderRepository;
+import com.digital.order.repository.QueueOrderRepository;
+import com.digital.order.repository.QueueRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Races many assignments for the same shop against an embedded PostgreSQL: every placed order gets a
+ * ticket of its own, no queue takes more orders than its max size, and the stored sizes match the entries.
+ */
+@SpringBootTest(properties = {
+		"spring.rabbitmq.listener.simple.auto-startup=false",
+		"spring.rabbitmq.listener.direct.auto-startup=false",
+		"order.outbox.poll-interval-ms=3600000",
+		"order.queue.compaction.interval-ms=3600000",
+		"order.admission.enabled=false"
+})
+class ConcurrentQueueAssignmentTest {
+	private static final int THREADS = 8;
+
+	@Autowired
+	private QueueService queueService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private QueueRepository queueRepository;
+
+	@Autowired
+	private QueueOrderRepository queueOrderRepository;
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@Test
+	void racingAssignmentsNeverOversubscribeAShop() throws Exception {
+		List<Queue> queues = List.of(createQueue(1L, 4), createQueue(1L, 6));
+		List<Order> orders = orders(1L, 30);
+
+		List<Optional<QueueOrder>> results = race(orders, order -> queueService.tryAssignOrderToQueue(1L, order));
+
+		assertThat(results.stream().filter(Optional::isPresent).count()).isEqualTo(10);
+		assertFilledExactly(queues);
+	}
+
+	@Test
+	void racingAssignmentsToOneQueueHandOutEveryTicketOnce() throws Exception {
+		Queue queue = createQueue(2L, 12);
+		List<Order> orders = orders(2L, 20);
+
+		List<Boolean> results = race(orders, order -> {
+			try {
+				queueService.assignOrderToQueue(2L, order);
+				return true;
+			} catch (RuntimeException e) {
+				return false;
+			}
+		});
+
+		assertThat(results.stream().filter(placed -> placed).count()).isEqualTo(12);
+		assertFilledExactly(List.of(queue));
+	}
+
+	/**
+	 * Every queue is full, its stored size equals its live entries, and no ticket is handed out twice.
+	 */
+	private void assertFilledExactly(List<Queue> queues) {
+		for (Queue queue : queues) {
+			List<QueueOrder> entries = queueOrderRepository.findByQueueIdAndCancelledAtIsNullOrderByTicketAsc(queue.getId());
+			Queue stored = queueRepository.findById(queue.getId()).orElseThrow();
+			assertThat(stored.getCurrentSize()).isEqualTo(entries.size()).isEqualTo(queue.getMaxSize());
+			assertThat(entries).extracting(QueueOrder::getTicket).doesNotHaveDuplicates();
+		}
+	}
+
+	private <T> List<T> race(List<Order> orders, Function<Order, T> task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<T>> futures = new ArrayList<>();
+			for (Order order : orders) {
+				Callable<T> call = () -> {
+					start.await();
+					return task.apply(order);
+				};
+				futures.add(executor.submit(call));
+			}
+			start.countDown();
+			List<T> results = new ArrayList<>();
+			for (Future<T> future : futures) {
+				results.add(future.get(30, TimeUnit.SECONDS));
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Queue createQueue(Long shopId, int maxSize) {
+		QueueRequest request = new QueueRequest();
+		request.setShopId(shopId);
+		request.setName("counter");
+		request.setMaxSize(maxSize);
+		return queueService.createQueue(request);
+	}
+
+	private List<Order> orders(Long shopId, int count) {
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Order order = new Order();
+			order.setCustomerName("customer " + i);
+			order.setOrderDetails("coffee");
+			order.setOrderTime(LocalDateTime.now());
+			order.setShopId(shopId);
+			order.setStatus(Order.OrderStatus.IN_QUEUE);
+			orders.add(orderRepository.save(order));
+		}
+		return orders;
+	}
+}
@@ -0,0 +1,57 @@
+package com.digital.order.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded PostgreSQL for the tests that need the native queries and the Liquibase changelog as in
+ * production. One server is started on first use and stopped with the JVM; every Spring context that
+ * registers gets a fresh database on it, so test classes do not see each other's rows.
+ */
+final class EmbeddedDatabase {
+	private static final AtomicInteger DATABASES = new AtomicInteger();
+
+	private EmbeddedDatabase() {
+	}
+
+	static void register(DynamicPropertyRegistry registry) {
+		EmbeddedPostgres postgres = Server.POSTGRES;
+		String name = "test" + DATABASES.incrementAndGet();
+		try (Connection connection = postgres.getPostgresDatabase().getConnection();
+			 Statement statement = connection.createStatement()) {
+			statement.execute("CREATE DATABASE " + name);
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not create database " + name, e);
+		}
+		registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", name));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "postgres");
+	}
+
+	private static final class Server {
+		static final EmbeddedPostgres POSTGRES = start();
+
+		private static EmbeddedPostgres start() {
+			try {
+				EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					try {
+						postgres.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}));
+				return postgres;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
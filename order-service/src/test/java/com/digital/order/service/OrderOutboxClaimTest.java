@@ -0,0 +1,89 @@
+package com.digital.order.service;
+
+import com.digital.order.model.OrderOutbox;
+import com.digital.order.repository.OrderOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the relay's claim query against an embedded PostgreSQL: while one relay's transaction holds a
+ * routing key, another relay gets none of that key's messages, only those of the keys nobody holds.
+ */
+@SpringBootTest(properties = {
+		"spring.rabbitmq.listener.simple.auto-startup=false",
+		"spring.rabbitmq.listener.direct.auto-startup=false",
+		"order.outbox.poll-interval-ms=3600000",
+		"order.queue.compaction.interval-ms=3600000",
+		"order.admission.enabled=false"
+})
+class OrderOutboxClaimTest {
+	@Autowired
+	private OrderOutboxRepository outboxRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@Test
+	void aClaimedPartitionIsNotPublishedByAnotherRelay() throws Exception {
+		OrderOutbox first = save("order.0");
+		OrderOutbox second = save("order.0");
+
+		CountDownLatch claimed = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		CompletableFuture<List<Long>> holder = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+			// Only one row fetched, but the whole partition stays claimed until the transaction ends
+			List<Long> ids = ids(outboxRepository.lockNextBatch(1));
+			claimed.countDown();
+			await(done);
+			return ids;
+		}));
+		assertThat(claimed.await(10, TimeUnit.SECONDS)).isTrue();
+		OrderOutbox other = save("order.1");
+
+		List<Long> contended = transactionTemplate.execute(status -> ids(outboxRepository.lockNextBatch(10)));
+		done.countDown();
+
+		assertThat(holder.get(10, TimeUnit.SECONDS)).containsExactly(first.getId());
+		assertThat(contended).containsExactly(other.getId());
+		List<Long> released = transactionTemplate.execute(status -> ids(outboxRepository.lockNextBatch(10)));
+		assertThat(released).containsExactly(first.getId(), second.getId(), other.getId());
+	}
+
+	private OrderOutbox save(String routingKey) {
+		OrderOutbox entry = new OrderOutbox();
+		entry.setOrderId(1L);
+		entry.setExchange("order_exchange");
+		entry.setRoutingKey(routingKey);
+		entry.setContentType("application/json");
+		entry.setPayload(new byte[0]);
+		return outboxRepository.save(entry);
+	}
+
+	private static List<Long> ids(List<OrderOutbox> entries) {
+		return entries.stream().map(OrderOutbox::getId).toList();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
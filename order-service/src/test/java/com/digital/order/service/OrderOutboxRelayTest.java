@@ -0,0 +1,91 @@
+package com.digital.order.service;
+
+import com.digital.order.model.OrderOutbox;
+import com.digital.order.repository.OrderOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderOutboxRelayTest {
+	private final OrderOutboxRepository outboxRepository = mock(OrderOutboxRepository.class);
+	private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+	private final RabbitOperations operations = mock(RabbitOperations.class);
+	private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+	private final OrderOutboxRelay relay = new OrderOutboxRelay(outboxRepository, rabbitTemplate, transactionTemplate,
+			new OrderMetrics(new SimpleMeterRegistry()), 10, 100);
+
+	OrderOutboxRelayTest() {
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+				invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+	}
+
+	@Test
+	void keepsEverythingBehindTheFirstUnconfirmedMessageOfAPartition() {
+		when(outboxRepository.lockNextBatch(anyInt())).thenReturn(List.of(
+				entry(1L, "order.0"), entry(2L, "order.0"), entry(3L, "order.1"), entry(4L, "order.0")));
+		nack(2L);
+
+		relay.relay();
+
+		// 4 was confirmed too, but deleting it would let the retry of 2 overtake it; order.1 is unaffected
+		verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 3L));
+	}
+
+	@Test
+	void keepsMessagesWhoseConfirmNeverArrives() {
+		when(outboxRepository.lockNextBatch(anyInt())).thenReturn(List.of(entry(1L, "order.0")));
+
+		relay.relay();
+
+		verify(outboxRepository).deleteAllByIdInBatch(List.of());
+	}
+
+	@Test
+	void doesNothingWhenTheOutboxIsEmpty() {
+		when(outboxRepository.lockNextBatch(anyInt())).thenReturn(List.of());
+
+		relay.relay();
+
+		verify(rabbitTemplate, never()).invoke(any());
+	}
+
+	/**
+	 * Confirms every published message except the given one, which the broker nacks.
+	 */
+	private void nack(Long id) {
+		doAnswer(invocation -> {
+			CorrelationData correlation = invocation.getArgument(3);
+			correlation.getFuture().complete(new CorrelationData.Confirm(!correlation.getId().equals(String.valueOf(id)), null));
+			return null;
+		}).when(operations).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+	}
+
+	private OrderOutbox entry(Long id, String routingKey) {
+		OrderOutbox entry = new OrderOutbox();
+		entry.setId(id);
+		entry.setOrderId(id);
+		entry.setExchange("order_exchange");
+		entry.setRoutingKey(routingKey);
+		entry.setContentType("application/json");
+		entry.setPayload(new byte[0]);
+		return entry;
+	}
+}
@@ -0,0 +1,96 @@
+package com.digital.order.service;
+
+import com.digital.order.dto.OrderStatusResponse;
+import com.digital.order.event.OrderStatusChangedEvent;
+import com.digital.order.event.QueueEntryRemovedEvent;
+import com.digital.order.event.QueueUpdatedEvent;
+import com.digital.order.model.Order;
+import com.digital.order.model.Queue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatusCacheTest {
+	private static final long QUEUE_ID = 1L;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final OrderStatusCache cache = new OrderStatusCache(meterRegistry, 100, 60);
+	private final AtomicInteger loads = new AtomicInteger();
+	// Committed state: orders 1..3 hold tickets 1..3 in the same queue
+	private final Map<Long, Integer> positions = new ConcurrentHashMap<>(Map.of(1L, 1, 2L, 2, 3L, 3));
+
+	private final Function<Long, OrderStatusResponse> loader = orderId -> {
+		loads.incrementAndGet();
+		return OrderStatusResponse.builder()
+				.orderId(orderId)
+				.status("IN_QUEUE")
+				.queueId(QUEUE_ID)
+				.ticket(orderId)
+				.queuePosition(positions.get(orderId))
+				.totalCustomersWaiting(positions.size())
+				.build();
+	};
+
+	@Test
+	void removalReloadsOnlyTheOrdersBehind() {
+		for (long orderId = 1; orderId <= 3; orderId++) {
+			cache.get(orderId, loader);
+		}
+
+		leave(2L);
+		cache.onEntryRemoved(new QueueEntryRemovedEvent(9L, QUEUE_ID, 2L, 2, 2));
+
+		assertThat(cache.get(1L, loader).getQueuePosition()).isEqualTo(1);
+		assertThat(cache.get(1L, loader).getTotalCustomersWaiting()).isEqualTo(2);
+		assertThat(cache.get(3L, loader).getQueuePosition()).isEqualTo(2);
+		assertThat(cache.get(3L, loader).getEstimatedWaitingMinutes()).isNull();
+		assertThat(loads).hasValue(4);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", "orderStatus").tag("result", "hit").functionCounter().count())
+				.isEqualTo(3);
+	}
+
+	@Test
+	void positionCachedBetweenCommitAndListenerIsNotMovedTwice() {
+		leave(2L);
+		// A poll after the commit but before the after-commit listener caches the new position
+		assertThat(cache.get(3L, loader).getQueuePosition()).isEqualTo(2);
+
+		cache.onEntryRemoved(new QueueEntryRemovedEvent(9L, QUEUE_ID, 2L, 2, 2));
+
+		assertThat(cache.get(3L, loader).getQueuePosition()).isEqualTo(2);
+	}
+
+	@Test
+	void queueUpdateDropsTheQueuesCachedOrders() {
+		cache.get(1L, loader);
+		cache.get(2L, loader);
+
+		// e.g. after the shop's open orders were cancelled in bulk
+		cache.onQueueUpdated(new QueueUpdatedEvent(9L, QUEUE_ID, Queue.QueueStatus.ACTIVE, 10, 1));
+
+		cache.get(1L, loader);
+		cache.get(2L, loader);
+		assertThat(loads).hasValue(4);
+	}
+
+	@Test
+	void statusChangeUpdatesTheCachedEntryInPlace() {
+		cache.get(1L, loader);
+
+		cache.onOrderStatusChanged(new OrderStatusChangedEvent(1L, Order.OrderStatus.PROCESSING));
+
+		assertThat(cache.get(1L, loader).getStatus()).isEqualTo("PROCESSING");
+		assertThat(loads).hasValue(1);
+	}
+
+	private void leave(Long orderId) {
+		positions.remove(orderId);
+		positions.replaceAll((id, position) -> id > orderId ? position - 1 : position);
+	}
+}
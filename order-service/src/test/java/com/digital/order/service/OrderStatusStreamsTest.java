@@ -0,0 +1,78 @@
+package com.digital.order.service;
+
+import com.digital.order.dto.OrderStatusResponse;
+import com.digital.order.event.OrderStatusChangedEvent;
+import com.digital.order.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderStatusStreamsTest {
+	private final QueueService queueService = mock(QueueService.class);
+	private final OrderStatusStreams streams = new OrderStatusStreams(queueService, 60_000);
+
+	@Test
+	void keepsStreamOpenUntilOrderIsReady() {
+		when(queueService.getOrderStatus(1L)).thenReturn(status(1L, "IN_QUEUE"));
+		streams.open(1L);
+		streams.open(1L);
+		assertThat(streams.openStreams()).isEqualTo(2);
+
+		streams.onOrderStatusChanged(new OrderStatusChangedEvent(1L, Order.OrderStatus.PROCESSING));
+		assertThat(streams.openStreams()).isEqualTo(2);
+
+		streams.onOrderStatusChanged(new OrderStatusChangedEvent(1L, Order.OrderStatus.READY));
+		assertThat(streams.openStreams()).isZero();
+	}
+
+	@Test
+	void completesRightAwayForAFinishedOrder() {
+		// What the status lookup returns once the entry is tombstoned: no queue, the order's own status
+		when(queueService.getOrderStatus(2L)).thenReturn(status(2L, "CANCELLED"));
+		streams.open(2L);
+
+		assertThat(streams.openStreams()).isZero();
+	}
+
+	@Test
+	void keepsStreamOpenForAnOrderNotQueuedYet() {
+		when(queueService.getOrderStatus(4L)).thenReturn(status(4L, "NOT_IN_QUEUE"));
+		streams.open(4L);
+
+		assertThat(streams.openStreams()).isEqualTo(1);
+	}
+
+	@Test
+	void completesWhenTheOrderIsReadiedWhileTheSnapshotIsRead() {
+		AtomicBoolean committed = new AtomicBoolean();
+		when(queueService.getOrderStatus(5L)).thenAnswer(invocation -> {
+			// READY commits while the snapshot query runs, which still reads IN_QUEUE
+			if (committed.compareAndSet(false, true)) {
+				streams.onOrderStatusChanged(new OrderStatusChangedEvent(5L, Order.OrderStatus.READY));
+				return status(5L, "IN_QUEUE");
+			}
+			return status(5L, "READY");
+		});
+
+		streams.open(5L);
+
+		assertThat(streams.openStreams()).isZero();
+	}
+
+	@Test
+	void ignoresOrdersNobodyIsWatching() {
+		streams.onOrderStatusChanged(new OrderStatusChangedEvent(3L, Order.OrderStatus.READY));
+
+		verify(queueService, times(0)).getOrderStatus(3L);
+	}
+
+	private static OrderStatusResponse status(Long orderId, String status) {
+		return OrderStatusResponse.builder().orderId(orderId).status(status).build();
+	}
+}
@@ -0,0 +1,67 @@
+package com.digital.order.service;
+
+import com.digital.order.dto.OrderStatusResponse;
+import com.digital.order.event.OrderStatusChangedEvent;
+import com.digital.order.event.QueueEntryRemovedEvent;
+import com.digital.order.model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderStatusVersionsTest {
+	private final QueueService queueService = mock(QueueService.class);
+	private final OrderStatusVersions versions = new OrderStatusVersions(queueService, 1000, 30, 60_000);
+
+	@BeforeEach
+	void setUp() {
+		when(queueService.getOrderStatus(1L)).thenReturn(OrderStatusResponse.builder()
+				.orderId(1L).status("IN_QUEUE").queueId(10L).queuePosition(3).build());
+	}
+
+	@Test
+	void keepsTheVersionUntilSomethingChanges() {
+		ResponseEntity<OrderStatusResponse> response = versions.respond(1L);
+
+		assertThat(response.getHeaders().getETag()).isEqualTo(OrderStatusVersions.etag(versions.version(1L)));
+		assertThat(versions.version(1L)).isEqualTo(versions.version(1L));
+	}
+
+	@Test
+	void bumpsTheVersionOnStatusAndQueueChanges() {
+		versions.respond(1L);
+		long initial = versions.version(1L);
+
+		versions.onOrderStatusChanged(new OrderStatusChangedEvent(1L, Order.OrderStatus.PROCESSING));
+		long afterStatus = versions.version(1L);
+		versions.onEntryRemoved(new QueueEntryRemovedEvent(1L, 10L, 7L, 1, 4));
+		long afterRemoval = versions.version(1L);
+
+		assertThat(afterStatus).isGreaterThan(initial);
+		assertThat(afterRemoval).isGreaterThan(afterStatus);
+	}
+
+	@Test
+	void parksLongPollUntilTheQueueMoves() {
+		versions.respond(1L);
+		DeferredResult<ResponseEntity<OrderStatusResponse>> result = versions.await(1L, versions.version(1L));
+		assertThat(result.hasResult()).isFalse();
+
+		versions.onEntryRemoved(new QueueEntryRemovedEvent(1L, 10L, 7L, 1, 4));
+
+		assertThat(result.hasResult()).isTrue();
+		assertThat(versions.waiting()).isZero();
+	}
+
+	@Test
+	void answersLongPollRightAwayWhenAlreadyBehind() {
+		long stale = versions.version(1L);
+		versions.onOrderStatusChanged(new OrderStatusChangedEvent(1L, Order.OrderStatus.PROCESSING));
+
+		assertThat(versions.await(1L, stale).hasResult()).isTrue();
+	}
+}
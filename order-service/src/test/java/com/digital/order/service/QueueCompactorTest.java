@@ -0,0 +1,35 @@
+package com.digital.order.service;
+
+import com.digital.order.repository.QueueOrderRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueueCompactorTest {
+	private final QueueOrderRepository queueOrderRepository = mock(QueueOrderRepository.class);
+	private final QueueCompactor compactor = new QueueCompactor(queueOrderRepository, 2);
+
+	@Test
+	void keepsDeletingWhileBatchesComeBackFull() {
+		when(queueOrderRepository.deleteTombstones(2))
+				.thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+
+		compactor.compact();
+
+		verify(queueOrderRepository, times(3)).deleteTombstones(2);
+	}
+
+	@Test
+	void stopsAfterOneQueryWhenThereIsNothingToDelete() {
+		when(queueOrderRepository.deleteTombstones(2)).thenReturn(List.of());
+
+		compactor.compact();
+
+		verify(queueOrderRepository, times(1)).deleteTombstones(2);
+	}
+}
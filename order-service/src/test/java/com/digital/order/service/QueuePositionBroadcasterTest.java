@@ -0,0 +1,70 @@
+package com.digital.order.service;
+
+import com.digital.order.dto.QueuePositionDelta;
+import com.digital.order.event.QueueEntriesRemovedEvent;
+import com.digital.order.event.QueueEntryRemovedEvent;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class QueuePositionBroadcasterTest {
+	private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+	private final QueuePositionBroadcaster broadcaster =
+			new QueuePositionBroadcaster(messagingTemplate, new ServiceTimeEstimator(5, 0.1, 120));
+
+	@Test
+	void coalescesABurstOfRemovalsIntoOneFramePerQueue() {
+		broadcaster.onEntryRemoved(new QueueEntryRemovedEvent(1L, 10L, 100L, 7, 9));
+		broadcaster.onEntryRemoved(new QueueEntryRemovedEvent(1L, 10L, 101L, 3, 8));
+		broadcaster.onEntryRemoved(new QueueEntryRemovedEvent(1L, 20L, 102L, 1, 4));
+
+		broadcaster.broadcast();
+
+		ArgumentCaptor<QueuePositionDelta> frame = ArgumentCaptor.forClass(QueuePositionDelta.class);
+		verify(messagingTemplate).convertAndSend(eq("/topic/queue.10"), frame.capture());
+		assertThat(frame.getValue().getRemovedTickets()).containsExactly(3L, 7L);
+		assertThat(frame.getValue().getQueueSize()).isEqualTo(8);
+		assertThat(frame.getValue().getMeanPreparationSeconds()).isEqualTo(300.0);
+		verify(messagingTemplate).convertAndSend(eq("/topic/queue.20"), any(QueuePositionDelta.class));
+	}
+
+	@Test
+	void bulkCancellationJoinsTheSameFrame() {
+		broadcaster.onEntryRemoved(new QueueEntryRemovedEvent(1L, 10L, 100L, 7, 9));
+		broadcaster.onEntriesRemoved(new QueueEntriesRemovedEvent(1L, 10L, List.of(2L, 5L), 7));
+
+		broadcaster.broadcast();
+
+		ArgumentCaptor<QueuePositionDelta> frame = ArgumentCaptor.forClass(QueuePositionDelta.class);
+		verify(messagingTemplate).convertAndSend(eq("/topic/queue.10"), frame.capture());
+		assertThat(frame.getValue().getRemovedTickets()).containsExactly(2L, 5L, 7L);
+		assertThat(frame.getValue().getQueueSize()).isEqualTo(7);
+	}
+
+	@Test
+	void sendsNothingWhenNoOrderLeft() {
+		broadcaster.onEntryRemoved(new QueueEntryRemovedEvent(1L, 10L, 100L, 7, 9));
+		broadcaster.broadcast();
+		broadcaster.broadcast();
+
+		verify(messagingTemplate, times(1)).convertAndSend(anyString(), any(QueuePositionDelta.class));
+	}
+
+	@Test
+	void staysQuietWithoutRemovals() {
+		broadcaster.broadcast();
+
+		verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+	}
+}
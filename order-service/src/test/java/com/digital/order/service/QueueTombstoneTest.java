@@ -0,0 +1,162 @@
+package com.digital.order.service;
+
+import com.digital.order.dto.OrderStatusResponse;
+import com.digital.order.dto.QueueRequest;
+import com.digital.order.model.Order;
+import com.digital.order.model.Queue;
+import com.digital.order.repository.OrderRepository;
+import com.digital.order.repository.QueueOrderRepository;
+import com.digital.order.repository.QueueRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the tombstone queries against an embedded PostgreSQL with the real changelog: a cancelled entry
+ * gives its slot back once, the order keeps reporting CANCELLED, and compaction leaves queue sizes alone.
+ * Positions are ranks over live tickets, so they close up over tombstones and deleted entries alike.
+ */
+@SpringBootTest(properties = {
+		"spring.rabbitmq.listener.simple.auto-startup=false",
+		"spring.rabbitmq.listener.direct.auto-startup=false",
+		"order.outbox.poll-interval-ms=3600000",
+		"order.queue.compaction.interval-ms=3600000",
+		"order.admission.enabled=false"
+})
+class QueueTombstoneTest {
+	@Autowired
+	private QueueService queueService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private QueueCompactor queueCompactor;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private QueueRepository queueRepository;
+
+	@Autowired
+	private QueueOrderRepository queueOrderRepository;
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@Test
+	void cancelledEntryIsTombstonedReportedAndCompactedAway() {
+		Queue queue = createQueue(1L);
+		Order first = queueOrder(queue);
+		Order second = queueOrder(queue);
+		Order third = queueOrder(queue);
+
+		orderService.updateOrderStatus(first.getId(), Order.OrderStatus.CANCELLED);
+
+		OrderStatusResponse cancelled = queueService.getOrderStatus(first.getId());
+		assertThat(cancelled.getStatus()).isEqualTo("CANCELLED");
+		assertThat(cancelled.getQueueId()).isNull();
+		assertThat(queueService.getOrderStatus(second.getId()).getQueuePosition()).isEqualTo(1);
+		assertThat(queueService.getOrderStatus(third.getId()).getQueuePosition()).isEqualTo(2);
+		assertThat(currentSize(queue)).isEqualTo(2);
+		assertThat(rows(queue)).isEqualTo(3);
+
+		// The tombstone already released its slot: removing the order again must not release it twice
+		queueService.removeOrderFromQueue(first.getId());
+		assertThat(currentSize(queue)).isEqualTo(2);
+
+		queueCompactor.compact();
+		assertThat(rows(queue)).isEqualTo(2);
+		assertThat(currentSize(queue)).isEqualTo(2);
+		assertThat(queueService.getOrderStatus(first.getId()).getStatus()).isEqualTo("CANCELLED");
+	}
+
+	@Test
+	void positionsCloseUpAfterCancellationsAndRemovals() {
+		Queue queue = createQueue(2L);
+		Order first = queueOrder(queue);
+		Order second = queueOrder(queue);
+		Order third = queueOrder(queue);
+		Order fourth = queueOrder(queue);
+		// Cached from here on, so the checks below also cover the in-place cache updates
+		assertThat(queueService.getOrderStatus(fourth.getId()).getQueuePosition()).isEqualTo(4);
+
+		orderService.updateOrderStatus(second.getId(), Order.OrderStatus.CANCELLED);
+		queueService.removeOrderFromQueue(first.getId());
+
+		assertThat(queueService.getOrderStatus(third.getId()).getQueuePosition()).isEqualTo(1);
+		assertThat(queueService.getOrderStatus(fourth.getId()).getQueuePosition()).isEqualTo(2);
+		assertThat(queueService.getOrderStatus(fourth.getId()).getTotalCustomersWaiting()).isEqualTo(2);
+		assertThat(queueService.getOrderStatus(first.getId()).getStatus()).isEqualTo("NOT_IN_QUEUE");
+	}
+
+	@Test
+	void bulkTombstoneReturnsEveryTicketWithItsQueue() {
+		Queue queue = createQueue(3L);
+		Order first = queueOrder(queue);
+		Order second = queueOrder(queue);
+		Order third = queueOrder(queue);
+		cancel(first);
+		cancel(third);
+
+		List<QueueOrderRepository.ReleasedEntry> released = queueOrderRepository.tombstoneCancelledInShop(3L);
+
+		assertThat(released).extracting(QueueOrderRepository.ReleasedEntry::getTicket)
+				.containsExactly(ticket(first), ticket(third));
+		assertThat(released).allSatisfy(entry -> {
+			assertThat(entry.getQueueId()).isEqualTo(queue.getId());
+			assertThat(entry.getCurrentSize()).isEqualTo(1);
+		});
+		assertThat(queueService.getOrderStatus(second.getId()).getQueuePosition()).isEqualTo(1);
+	}
+
+	private Queue createQueue(Long shopId) {
+		QueueRequest request = new QueueRequest();
+		request.setShopId(shopId);
+		request.setName("counter");
+		request.setMaxSize(10);
+		return queueService.createQueue(request);
+	}
+
+	private Order queueOrder(Queue queue) {
+		Order order = new Order();
+		order.setCustomerName("customer");
+		order.setOrderDetails("coffee");
+		order.setOrderTime(LocalDateTime.now());
+		order.setShopId(queue.getShopId());
+		order.setStatus(Order.OrderStatus.IN_QUEUE);
+		Order saved = orderRepository.save(order);
+		queueService.addOrderToQueue(queue.getId(), saved);
+		return saved;
+	}
+
+	private void cancel(Order order) {
+		order.setStatus(Order.OrderStatus.CANCELLED);
+		orderRepository.save(order);
+	}
+
+	private long ticket(Order order) {
+		return queueOrderRepository.findByOrderId(order.getId()).getTicket();
+	}
+
+	// Tombstones included; other tests' queues share the table
+	private long rows(Queue queue) {
+		return queueOrderRepository.findAll().stream()
+				.filter(entry -> entry.getQueue().getId().equals(queue.getId()))
+				.count();
+	}
+
+	private int currentSize(Queue queue) {
+		return queueRepository.findById(queue.getId()).orElseThrow().getCurrentSize();
+	}
+}
@@ -0,0 +1,71 @@
+package com.digital.order.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ServiceTimeEstimatorTest {
+	private static final long MINUTE_NANOS = 60_000_000_000L;
+
+	private final AtomicLong clock = new AtomicLong();
+	private final ServiceTimeEstimator estimator = new ServiceTimeEstimator(5, 0.1, 120, clock::get);
+
+	@Test
+	void fallsBackToConfiguredPreparationTimeWithoutSamples() {
+		ServiceTimeEstimator.WaitEstimate wait = estimator.estimate(1L, 3);
+
+		assertThat(wait.p50Minutes()).isEqualTo(15);
+		assertThat(wait.p90Minutes()).isGreaterThan(15);
+	}
+
+	@Test
+	void learnsPreparationTimeFromCompletedOrders() {
+		for (long orderId = 1; orderId <= 50; orderId++) {
+			estimator.processingStarted(orderId, 1L);
+			clock.addAndGet((orderId % 2 == 0 ? 1 : 3) * MINUTE_NANOS);
+			estimator.processingEnded(orderId, true);
+		}
+
+		ServiceTimeEstimator.WaitEstimate wait = estimator.estimate(1L, 4);
+		assertThat(wait.p50Minutes()).isBetween(7, 9);
+		assertThat(wait.p90Minutes()).isBetween(wait.p50Minutes() + 1, wait.p50Minutes() + 4);
+		assertThat(estimator.estimate(2L, 4).p50Minutes()).isEqualTo(20);
+	}
+
+	@Test
+	void firstSampleKeepsAPriorSpread() {
+		estimator.observe(1L, 120);
+
+		ServiceTimeEstimator.PreparationTime preparation = estimator.preparationTime(1L);
+		assertThat(preparation.meanSeconds()).isEqualTo(120.0);
+		assertThat(preparation.stdDevSeconds()).isCloseTo(48.0, within(1e-9));
+		assertThat(estimator.estimate(1L, 4).p90Seconds()).isGreaterThan(estimator.estimate(1L, 4).p50Seconds());
+	}
+
+	@Test
+	void ordersStuckInProcessingAreEvictedAfterTheTtl() {
+		estimator.processingStarted(1L, 1L);
+		clock.addAndGet(60 * MINUTE_NANOS);
+		estimator.processingStarted(2L, 1L);
+		clock.addAndGet(61 * MINUTE_NANOS);
+
+		estimator.evictStale();
+
+		assertThat(estimator.inProgress()).isEqualTo(1);
+		// The evicted order finishing late is not sampled
+		estimator.processingEnded(1L, true);
+		assertThat(estimator.estimate(1L, 1).p50Minutes()).isEqualTo(5);
+	}
+
+	@Test
+	void cancelledOrdersAreNotSampled() {
+		estimator.processingStarted(1L, 1L);
+		clock.addAndGet(60 * MINUTE_NANOS);
+		estimator.processingEnded(1L, false);
+
+		assertThat(estimator.estimate(1L, 1).p50Minutes()).isEqualTo(5);
+	}
+}
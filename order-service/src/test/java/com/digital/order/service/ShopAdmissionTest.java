@@ -0,0 +1,109 @@
+package com.digital.order.service;
+
+import com.digital.order.event.QueueEntryAddedEvent;
+import com.digital.order.model.Queue;
+import com.digital.order.repository.QueueRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShopAdmissionTest {
+	private static final Long SHOP_ID = 7L;
+
+	private final QueueRepository queueRepository = mock(QueueRepository.class);
+	private final ShopQueueIndex shopQueueIndex = new ShopQueueIndex(queueRepository);
+	private final AtomicLong now = new AtomicLong();
+	// Two queues at the default 5 minutes per order drain one order every 150 seconds
+	private final ShopAdmission admission = new ShopAdmission(shopQueueIndex, new ServiceTimeEstimator(5, 0.1, 120),
+			true, 10_000, 1_000, 300, now::get);
+
+	@Test
+	void rejectsOnceFreePlacesAreTakenByInFlightOrders() {
+		when(queueRepository.findByShopId(SHOP_ID)).thenReturn(List.of(queue(1L, 1, 2), queue(2L, 1, 2)));
+
+		assertThat(admission.tryAdmit(SHOP_ID).admitted()).isTrue();
+		assertThat(admission.tryAdmit(SHOP_ID).admitted()).isTrue();
+		ShopAdmission.Admission rejected = admission.tryAdmit(SHOP_ID);
+
+		assertThat(rejected.admitted()).isFalse();
+		assertThat(rejected.retryAfterSeconds()).isEqualTo(150);
+	}
+
+	@Test
+	void queuedOrderIsCountedOnceAndReleasedPlaceIsReused() {
+		when(queueRepository.findByShopId(SHOP_ID))
+				.thenReturn(List.of(queue(1L, 0, 2)))
+				.thenReturn(List.of(queue(1L, 1, 2)));
+
+		admission.tryAdmit(SHOP_ID);
+		admission.tryAdmit(SHOP_ID);
+		// The first order reaches the queue: now counted by the index instead of as in flight
+		shopQueueIndex.onEntryAdded(new QueueEntryAddedEvent(SHOP_ID, 1L, 10L, 1, 1));
+		admission.onEntryAdded(new QueueEntryAddedEvent(SHOP_ID, 1L, 10L, 1, 1));
+		assertThat(admission.tryAdmit(SHOP_ID).admitted()).isFalse();
+
+		admission.release(SHOP_ID);
+		assertThat(admission.tryAdmit(SHOP_ID).admitted()).isTrue();
+	}
+
+	@Test
+	void inFlightOrdersExpireAndFullShopIsRecheckedAtMostOncePerInterval() {
+		when(queueRepository.findByShopId(SHOP_ID))
+				.thenReturn(List.of(queue(1L, 1, 2)))
+				.thenReturn(List.of(queue(1L, 2, 2)))
+				.thenReturn(List.of(queue(1L, 0, 2)));
+
+		assertThat(admission.tryAdmit(SHOP_ID).admitted()).isTrue();
+		// Full: reloaded once, still full, and not reloaded again within the interval
+		assertThat(admission.tryAdmit(SHOP_ID).admitted()).isFalse();
+		assertThat(admission.tryAdmit(SHOP_ID).admitted()).isFalse();
+		verify(queueRepository, times(2)).findByShopId(SHOP_ID);
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(11));
+		assertThat(admission.tryAdmit(SHOP_ID).admitted()).isTrue();
+		verify(queueRepository, times(3)).findByShopId(SHOP_ID);
+	}
+
+	@Test
+	void shopWithoutActiveQueuesGetsTheLongestRetryAfter() {
+		Queue closed = queue(1L, 0, 2);
+		closed.setStatus(Queue.QueueStatus.CLOSED);
+		when(queueRepository.findByShopId(SHOP_ID)).thenReturn(List.of(closed));
+
+		assertThatThrownBy(() -> admission.admit(SHOP_ID))
+				.isInstanceOfSatisfying(ShopAdmission.ShopSaturatedException.class, e -> {
+					assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+					assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("300");
+				});
+	}
+
+	@Test
+	void admitsEverythingWhenDisabled() {
+		ShopAdmission disabled = new ShopAdmission(shopQueueIndex, new ServiceTimeEstimator(5, 0.1, 120),
+				false, 10_000, 1_000, 300, now::get);
+
+		assertThat(disabled.tryAdmit(SHOP_ID).admitted()).isTrue();
+		verify(queueRepository, times(0)).findByShopId(SHOP_ID);
+	}
+
+	private static Queue queue(Long id, int currentSize, int maxSize) {
+		Queue queue = new Queue();
+		queue.setId(id);
+		queue.setShopId(SHOP_ID);
+		queue.setCurrentSize(currentSize);
+		queue.setMaxSize(maxSize);
+		queue.setStatus(Queue.QueueStatus.ACTIVE);
+		return queue;
+	}
+}
@@ -0,0 +1,69 @@
+package com.digital.order.service;
+
+import com.digital.order.model.Queue;
+import com.digital.order.repository.QueueRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShopMetricsTest {
+	private final QueueRepository queueRepository = mock(QueueRepository.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ShopMetrics metrics = new ShopMetrics(queueRepository, new ServiceTimeEstimator(5, 0.1, 120), registry);
+
+	@Test
+	void publishesDepthUtilizationAndWaitPerShop() {
+		when(queueRepository.findByStatus(Queue.QueueStatus.ACTIVE)).thenReturn(List.of(
+				queue(1L, 7L, 3, 10), queue(2L, 7L, 1, 10), queue(3L, 8L, 5, 5)));
+
+		metrics.refresh();
+
+		assertThat(registry.get("order.shop.queue.depth").tag("shop", "7").gauge().value()).isEqualTo(4.0);
+		assertThat(registry.get("order.shop.queue.utilization").tag("shop", "7").gauge().value()).isEqualTo(0.2);
+		// Shortest queue has one waiting, so a new order is second: 2 x 5 minutes
+		assertThat(registry.get("order.shop.wait.p50").tag("shop", "7").gauge().value()).isEqualTo(600.0);
+		assertThat(registry.get("order.shop.queue.utilization").tag("shop", "8").gauge().value()).isEqualTo(1.0);
+		// A full shop has no wait to offer
+		assertThat(registry.find("order.shop.wait.p50").tag("shop", "8").gauge()).isNull();
+	}
+
+	@Test
+	void publishesWaitInSecondsWithoutRoundingToMinutes() {
+		ShopMetrics fastShop = new ShopMetrics(queueRepository, new ServiceTimeEstimator(0.75, 0.1, 120), registry);
+		when(queueRepository.findByStatus(Queue.QueueStatus.ACTIVE)).thenReturn(List.of(queue(1L, 9L, 0, 10)));
+
+		fastShop.refresh();
+
+		// First in line at 45 seconds per order; p90 adds 1.2816 x the prior 40% spread
+		assertThat(registry.get("order.shop.wait.p50").tag("shop", "9").gauge().value()).isEqualTo(45.0);
+		assertThat(registry.get("order.shop.wait.p90").tag("shop", "9").gauge().value()).isCloseTo(68.07, within(0.01));
+	}
+
+	@Test
+	void dropsShopsWithoutActiveQueues() {
+		when(queueRepository.findByStatus(Queue.QueueStatus.ACTIVE))
+				.thenReturn(List.of(queue(1L, 7L, 3, 10)))
+				.thenReturn(List.of());
+
+		metrics.refresh();
+		metrics.refresh();
+
+		assertThat(registry.find("order.shop.queue.depth").tag("shop", "7").gauge()).isNull();
+	}
+
+	private static Queue queue(Long id, Long shopId, int currentSize, int maxSize) {
+		Queue queue = new Queue();
+		queue.setId(id);
+		queue.setShopId(shopId);
+		queue.setCurrentSize(currentSize);
+		queue.setMaxSize(maxSize);
+		queue.setStatus(Queue.QueueStatus.ACTIVE);
+		return queue;
+	}
+}
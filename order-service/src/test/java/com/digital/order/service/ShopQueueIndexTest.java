@@ -0,0 +1,135 @@
+package com.digital.order.service;
+
+import com.digital.order.event.QueueEntryAddedEvent;
+import com.digital.order.event.QueueEntryRemovedEvent;
+import com.digital.order.event.QueueUpdatedEvent;
+import com.digital.order.model.Order;
+import com.digital.order.model.Queue;
+import com.digital.order.model.QueueOrder;
+import com.digital.order.repository.OrderWaitlistRepository;
+import com.digital.order.repository.QueueOrderRepository;
+import com.digital.order.repository.QueueRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShopQueueIndexTest {
+	private static final Long SHOP_ID = 7L;
+
+	private final QueueRepository queueRepository = mock(QueueRepository.class);
+	private final QueueOrderRepository queueOrderRepository = mock(QueueOrderRepository.class);
+	private final ShopQueueIndex index = new ShopQueueIndex(queueRepository);
+
+	@Test
+	void reservationsSpreadOverTheShortestQueues() {
+		when(queueRepository.findByShopId(SHOP_ID)).thenReturn(List.of(queue(1L, 2, 5), queue(2L, 0, 5)));
+
+		assertThat(index.reserve(SHOP_ID)).contains(2L);
+		assertThat(index.reserve(SHOP_ID)).contains(2L);
+		// Both at 2 now: ties go to the lower queue id
+		assertThat(index.reserve(SHOP_ID)).contains(1L);
+		assertThat(index.occupancy(SHOP_ID).waiting()).isEqualTo(5);
+	}
+
+	@Test
+	void fullAndInactiveQueuesAreNotReserved() {
+		Queue paused = queue(2L, 0, 5);
+		paused.setStatus(Queue.QueueStatus.PAUSED);
+		when(queueRepository.findByShopId(SHOP_ID)).thenReturn(List.of(queue(1L, 1, 2), paused));
+
+		assertThat(index.reserve(SHOP_ID)).contains(1L);
+		assertThat(index.reserve(SHOP_ID)).isEmpty();
+
+		index.onQueueUpdated(new QueueUpdatedEvent(SHOP_ID, 2L, Queue.QueueStatus.ACTIVE, 5, 0));
+		assertThat(index.reserve(SHOP_ID)).contains(2L);
+	}
+
+	@Test
+	void releaseGivesTheReservationBack() {
+		when(queueRepository.findByShopId(SHOP_ID)).thenReturn(List.of(queue(1L, 1, 2)));
+
+		assertThat(index.reserve(SHOP_ID)).contains(1L);
+		index.release(SHOP_ID, 1L);
+
+		assertThat(index.occupancy(SHOP_ID).waiting()).isEqualTo(1);
+		assertThat(index.reserve(SHOP_ID)).contains(1L);
+	}
+
+	@Test
+	void entryEventsReplaceTheReservedSize() {
+		when(queueRepository.findByShopId(SHOP_ID)).thenReturn(List.of(queue(1L, 0, 5)));
+		index.reserve(SHOP_ID);
+		index.reserve(SHOP_ID);
+
+		index.onEntryAdded(new QueueEntryAddedEvent(SHOP_ID, 1L, 10L, 1, 1));
+		assertThat(index.occupancy(SHOP_ID).waiting()).isEqualTo(1);
+
+		index.onEntryRemoved(new QueueEntryRemovedEvent(SHOP_ID, 1L, 10L, 1, 0));
+		assertThat(index.occupancy(SHOP_ID).waiting()).isZero();
+	}
+
+	@Test
+	void failedClaimReleasesItsReservation() {
+		when(queueRepository.findByShopId(SHOP_ID)).thenReturn(List.of(queue(1L, 0, 5), queue(2L, 1, 5)));
+		// Queue 1 is reserved but its claim loses to a concurrent change; the shop-wide claim lands in queue 2
+		when(queueRepository.claimTicket(1L)).thenReturn(Optional.empty());
+		QueueRepository.TicketClaim claim = claim(2L);
+		when(queueRepository.claimTicketInShop(SHOP_ID)).thenReturn(Optional.of(claim));
+		when(queueOrderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		assertThat(queueService().tryAssignOrderToQueue(SHOP_ID, order(10L))).isPresent();
+
+		assertThat(index.occupancy(SHOP_ID).waiting()).isEqualTo(1);
+	}
+
+	@Test
+	void claimErrorReleasesItsReservation() {
+		when(queueRepository.findByShopId(SHOP_ID)).thenReturn(List.of(queue(1L, 0, 5)));
+		when(queueRepository.claimTicket(1L)).thenThrow(new RuntimeException("connection reset"));
+
+		assertThatThrownBy(() -> queueService().tryAssignOrderToQueue(SHOP_ID, order(10L)))
+				.hasMessage("connection reset");
+
+		assertThat(index.occupancy(SHOP_ID).waiting()).isZero();
+	}
+
+	private QueueService queueService() {
+		return new QueueService(queueRepository, queueOrderRepository, mock(OrderWaitlistRepository.class), index,
+				new ServiceTimeEstimator(5, 0.1, 120), mock(OrderStatusCache.class), mock(ApplicationEventPublisher.class),
+				Optional.empty());
+	}
+
+	private static QueueRepository.TicketClaim claim(Long queueId) {
+		QueueRepository.TicketClaim claim = mock(QueueRepository.TicketClaim.class);
+		when(claim.getShopId()).thenReturn(SHOP_ID);
+		when(claim.getQueueId()).thenReturn(queueId);
+		when(claim.getTicket()).thenReturn(2L);
+		when(claim.getPosition()).thenReturn(2);
+		return claim;
+	}
+
+	private static Order order(Long id) {
+		Order order = new Order();
+		order.setId(id);
+		order.setShopId(SHOP_ID);
+		return order;
+	}
+
+	private static Queue queue(Long id, int currentSize, int maxSize) {
+		Queue queue = new Queue();
+		queue.setId(id);
+		queue.setShopId(SHOP_ID);
+		queue.setCurrentSize(currentSize);
+		queue.setMaxSize(maxSize);
+		queue.setStatus(Queue.QueueStatus.ACTIVE);
+		return queue;
+	}
+}
@@ -0,0 +1,92 @@
+package com.digital.order.service;
+
+import com.digital.order.event.QueueEntryRemovedEvent;
+import com.digital.order.event.QueueUpdatedEvent;
+import com.digital.order.model.Order;
+import com.digital.order.model.OrderWaitlist;
+import com.digital.order.model.Queue;
+import com.digital.order.model.QueueOrder;
+import com.digital.order.repository.OrderRepository;
+import com.digital.order.repository.OrderWaitlistRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShopWaitlistTest {
+	private static final Long SHOP_ID = 7L;
+
+	private final OrderWaitlistRepository waitlistRepository = mock(OrderWaitlistRepository.class);
+	private final OrderRepository orderRepository = mock(OrderRepository.class);
+	private final QueueService queueService = mock(QueueService.class);
+	private final ShopWaitlist waitlist = new ShopWaitlist(waitlistRepository, orderRepository, queueService,
+			mock(PlatformTransactionManager.class), 50);
+
+	@Test
+	void admitsOldestFirstUntilAnOrderDoesNotFit() {
+		OrderWaitlist first = entry(1L);
+		OrderWaitlist second = entry(2L);
+		when(waitlistRepository.lockHead(SHOP_ID)).thenReturn(Optional.of(first), Optional.of(second));
+		Order firstOrder = order(1L, Order.OrderStatus.IN_QUEUE);
+		Order secondOrder = order(2L, Order.OrderStatus.IN_QUEUE);
+		when(orderRepository.findById(1L)).thenReturn(Optional.of(firstOrder));
+		when(orderRepository.findById(2L)).thenReturn(Optional.of(secondOrder));
+		when(queueService.tryAssignOrderToQueue(SHOP_ID, firstOrder)).thenReturn(Optional.of(new QueueOrder()));
+		when(queueService.tryAssignOrderToQueue(SHOP_ID, secondOrder)).thenReturn(Optional.empty());
+
+		waitlist.onEntryRemoved(new QueueEntryRemovedEvent(SHOP_ID, 3L, 99L, 1, 0));
+
+		verify(waitlistRepository).delete(first);
+		verify(waitlistRepository, never()).delete(second);
+	}
+
+	@Test
+	void dropsOrdersCancelledWhileWaiting() {
+		OrderWaitlist cancelled = entry(1L);
+		OrderWaitlist waiting = entry(2L);
+		when(waitlistRepository.lockHead(SHOP_ID))
+				.thenReturn(Optional.of(cancelled), Optional.of(waiting), Optional.empty());
+		when(orderRepository.findById(1L)).thenReturn(Optional.of(order(1L, Order.OrderStatus.CANCELLED)));
+		Order waitingOrder = order(2L, Order.OrderStatus.IN_QUEUE);
+		when(orderRepository.findById(2L)).thenReturn(Optional.of(waitingOrder));
+		when(queueService.tryAssignOrderToQueue(SHOP_ID, waitingOrder)).thenReturn(Optional.of(new QueueOrder()));
+
+		assertThat(waitlist.admit(SHOP_ID)).isEqualTo(1);
+		verify(waitlistRepository).delete(cancelled);
+		verify(waitlistRepository).delete(waiting);
+	}
+
+	@Test
+	void onlyQueuesWithRoomTriggerAdmission() {
+		waitlist.onQueueUpdated(new QueueUpdatedEvent(SHOP_ID, 3L, Queue.QueueStatus.PAUSED, 10, 0));
+		waitlist.onQueueUpdated(new QueueUpdatedEvent(SHOP_ID, 3L, Queue.QueueStatus.ACTIVE, 10, 10));
+		verify(waitlistRepository, never()).lockHead(any());
+
+		when(waitlistRepository.lockHead(SHOP_ID)).thenReturn(Optional.empty());
+		waitlist.onQueueUpdated(new QueueUpdatedEvent(SHOP_ID, 3L, Queue.QueueStatus.ACTIVE, 10, 9));
+		verify(waitlistRepository).lockHead(SHOP_ID);
+	}
+
+	private static OrderWaitlist entry(Long orderId) {
+		OrderWaitlist entry = new OrderWaitlist();
+		entry.setId(orderId);
+		entry.setOrderId(orderId);
+		entry.setShopId(SHOP_ID);
+		return entry;
+	}
+
+	private static Order order(Long id, Order.OrderStatus status) {
+		Order order = new Order();
+		order.setId(id);
+		order.setShopId(SHOP_ID);
+		order.setStatus(status);
+		return order;
+	}
+}
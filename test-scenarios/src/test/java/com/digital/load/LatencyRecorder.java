@@ -0,0 +1,101 @@
+package com.digital.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One HdrHistogram per order lifecycle phase, in microseconds from the order's scheduled arrival, so time an
+ * order spent waiting for a free user is counted too (no coordinated omission).
+ */
+public class LatencyRecorder {
+    public enum Phase {
+        CREATED,    // POST /api/orders answered
+        IN_QUEUE,   // IN_QUEUE frame received on /topic/order.{id}
+        ASSIGNED,   // status API reports a queue and ticket
+        NOTIFIED    // both of the above: the customer was told and can see their position
+    }
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<Phase, Histogram> histograms = new EnumMap<>(Phase.class);
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong missedNotifications = new AtomicLong();
+
+    public LatencyRecorder() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new ConcurrentHistogram(MAX_MICROS, 3));
+        }
+    }
+
+    public void record(Phase phase, long scheduledNanos, long nowNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nowNanos - scheduledNanos);
+        histograms.get(phase).recordValue(Math.min(Math.max(micros, 0), MAX_MICROS));
+    }
+
+    public void recordCompleted() {
+        completed.incrementAndGet();
+    }
+
+    public void recordFailed() {
+        failed.incrementAndGet();
+    }
+
+    public void recordMissedNotification() {
+        missedNotifications.incrementAndGet();
+    }
+
+    public long p99Millis(Phase phase) {
+        return TimeUnit.MICROSECONDS.toMillis(histograms.get(phase).getValueAtPercentile(99.0));
+    }
+
+    public long completed() {
+        return completed.get();
+    }
+
+    public long failed() {
+        return failed.get();
+    }
+
+    public long missedNotifications() {
+        return missedNotifications.get();
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            Histogram histogram = histograms.get(phase);
+            summary.append(String.format("%-9s n=%-7d p50=%dms p90=%dms p99=%dms p99.9=%dms max=%dms%n", phase,
+                histogram.getTotalCount(),
+                TimeUnit.MICROSECONDS.toMillis(histogram.getValueAtPercentile(50.0)),
+                TimeUnit.MICROSECONDS.toMillis(histogram.getValueAtPercentile(90.0)),
+                TimeUnit.MICROSECONDS.toMillis(histogram.getValueAtPercentile(99.0)),
+                TimeUnit.MICROSECONDS.toMillis(histogram.getValueAtPercentile(99.9)),
+                TimeUnit.MICROSECONDS.toMillis(histogram.getMaxValue())));
+        }
+        return summary.append(String.format("completed=%d failed=%d missedNotifications=%d",
+            completed.get(), failed.get(), missedNotifications.get())).toString();
+    }
+
+    /**
+     * Writes each phase's percentile distribution in milliseconds as target/load-reports/{phase}.hgrm,
+     * the format HdrHistogram's plotter reads, so runs can be overlaid and compared.
+     */
+    public void writeReports(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Phase phase : Phase.values()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(phase.name().toLowerCase() + ".hgrm")))) {
+                histograms.get(phase).outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+}
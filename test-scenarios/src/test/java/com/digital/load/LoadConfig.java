@@ -0,0 +1,51 @@
+package com.digital.load;
+
+import lombok.Value;
+
+/**
+ * Load run settings, read from system properties (-Dload.rate=100 ...) with defaults sized for a laptop.
+ */
+@Value
+public class LoadConfig {
+    String baseUrl;
+    int shops;
+    int queuesPerShop;
+    int subscribers;
+    int users;
+    double ratePerSecond;
+    int warmupSeconds;
+    int durationSeconds;
+    int orderTimeoutSeconds;
+    boolean completeOrders;
+    long maxP99CreateMs;
+    long maxP99AssignedMs;
+    long maxP99NotifiedMs;
+    double minThroughputRatio;
+    double maxMissedRatio;
+
+    public static LoadConfig fromSystemProperties() {
+        return new LoadConfig(
+            System.getProperty("api.base.url", "http://localhost:8080"),
+            Integer.getInteger("load.shops", 20),
+            Integer.getInteger("load.queues-per-shop", 2),
+            Integer.getInteger("load.subscribers", 20),
+            Integer.getInteger("load.users", 200),
+            Double.parseDouble(System.getProperty("load.rate", "50")),
+            Integer.getInteger("load.warmup-seconds", 10),
+            Integer.getInteger("load.duration-seconds", 60),
+            Integer.getInteger("load.order-timeout-seconds", 30),
+            Boolean.parseBoolean(System.getProperty("load.complete-orders", "true")),
+            Long.getLong("load.max-p99-create-ms", 500),
+            Long.getLong("load.max-p99-assigned-ms", 2000),
+            Long.getLong("load.max-p99-notified-ms", 2000),
+            Double.parseDouble(System.getProperty("load.min-throughput-ratio", "0.95")),
+            Double.parseDouble(System.getProperty("load.max-missed-ratio", "0.01")));
+    }
+
+    /**
+     * Nanoseconds between scheduled order arrivals across all users.
+     */
+    public long arrivalIntervalNanos() {
+        return (long) (1_000_000_000L / ratePerSecond);
+    }
+}
@@ -0,0 +1,207 @@
+package com.digital.load;
+
+import com.digital.load.LatencyRecorder.Phase;
+import com.digital.model.OrderRequest;
+import com.digital.model.OrderStatusResponse;
+import com.digital.util.WebSocketClient;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.restassured.RestAssured;
+import io.restassured.config.ObjectMapperConfig;
+import io.restassured.response.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.messaging.simp.stomp.StompSession;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Closed-loop load run: {@code load.users} virtual customers place orders on a fixed arrival schedule
+ * ({@code load.rate} per second, spread over {@code load.shops} shops) and follow each order until it sits
+ * in a queue, through the long-polling status API and a STOMP subscription on one of {@code load.subscribers}
+ * WebSocket sessions. Phase latencies, timed from each order's scheduled arrival, go into HdrHistograms
+ * (see {@link LatencyRecorder}); the run fails when a p99, the throughput or the missed-notification ratio
+ * crosses its threshold.
+ * <p>
+ * Not part of the default test run; start Postgres and RabbitMQ (docker compose up -d postgres rabbitmq),
+ * the service on localhost:8080, then: mvn test -Pload
+ */
+@Slf4j
+public class OrderLoadTest {
+    private final LoadConfig config = LoadConfig.fromSystemProperties();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final List<WebSocketClient> subscribers = new ArrayList<>();
+    private final List<Long> shopIds = new ArrayList<>();
+    private ExecutorService users;
+
+    @Before
+    public void setUp() throws Exception {
+        RestAssured.baseURI = config.getBaseUrl();
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        RestAssured.config = RestAssured.config()
+            .objectMapperConfig(new ObjectMapperConfig().jackson2ObjectMapperFactory((type, s) -> objectMapper));
+
+        // Unique shop ids per run, so queues left over from earlier runs do not skew positions
+        long firstShop = Math.abs(UUID.randomUUID().getMostSignificantBits() % 1_000_000) * 1_000;
+        for (int shop = 0; shop < config.getShops(); shop++) {
+            shopIds.add(firstShop + shop);
+            for (int queue = 0; queue < config.getQueuesPerShop(); queue++) {
+                RestAssured.given()
+                    .contentType("application/json")
+                    .body(Map.of("shopId", firstShop + shop, "name", "load-" + queue, "maxSize", 100_000))
+                    .post("/api/queues")
+                    .then().statusCode(200);
+            }
+        }
+
+        for (int i = 0; i < config.getSubscribers(); i++) {
+            WebSocketClient subscriber = new WebSocketClient();
+            subscriber.connect();
+            subscribers.add(subscriber);
+        }
+        users = Executors.newFixedThreadPool(config.getUsers());
+    }
+
+    @After
+    public void tearDown() {
+        if (users != null) {
+            users.shutdownNow();
+        }
+        subscribers.forEach(WebSocketClient::disconnect);
+    }
+
+    @Test
+    public void keepsLatencyAndThroughputWithinThresholds() throws Exception {
+        long interval = config.arrivalIntervalNanos();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+        AtomicLong sequence = new AtomicLong();
+
+        log.info("Load run: {} orders/s for {}s after {}s warm-up, {} users, {} shops, {} subscribers",
+            config.getRatePerSecond(), config.getDurationSeconds(), config.getWarmupSeconds(),
+            config.getUsers(), config.getShops(), config.getSubscribers());
+        List<CompletableFuture<Void>> loops = new ArrayList<>();
+        for (int i = 0; i < config.getUsers(); i++) {
+            loops.add(CompletableFuture.runAsync(() -> {
+                for (long n = sequence.getAndIncrement(); start + n * interval < end; n = sequence.getAndIncrement()) {
+                    long scheduled = start + n * interval;
+                    LockSupport.parkNanos(scheduled - System.nanoTime());
+                    placeAndFollow(n, scheduled, scheduled >= measureFrom);
+                }
+            }, users));
+        }
+        CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new))
+            .get(config.getWarmupSeconds() + config.getDurationSeconds() + 2L * config.getOrderTimeoutSeconds(), TimeUnit.SECONDS);
+
+        log.info("Load run finished:\n{}", recorder.summary());
+        recorder.writeReports(Path.of("target", "load-reports"));
+
+        long measured = recorder.completed() + recorder.failed();
+        double throughput = recorder.completed() / (double) config.getDurationSeconds();
+        SoftAssertions thresholds = new SoftAssertions();
+        thresholds.assertThat(recorder.p99Millis(Phase.CREATED)).as("p99 create ms").isLessThanOrEqualTo(config.getMaxP99CreateMs());
+        thresholds.assertThat(recorder.p99Millis(Phase.ASSIGNED)).as("p99 assigned ms").isLessThanOrEqualTo(config.getMaxP99AssignedMs());
+        thresholds.assertThat(recorder.p99Millis(Phase.NOTIFIED)).as("p99 notified ms").isLessThanOrEqualTo(config.getMaxP99NotifiedMs());
+        thresholds.assertThat(throughput).as("orders/s").isGreaterThanOrEqualTo(config.getRatePerSecond() * config.getMinThroughputRatio());
+        thresholds.assertThat(recorder.missedNotifications()).as("missed notifications")
+            .isLessThanOrEqualTo((long) (measured * config.getMaxMissedRatio()));
+        thresholds.assertAll();
+    }
+
+    private void placeAndFollow(long n, long scheduled, boolean measured) {
+        try {
+            OrderRequest request = new OrderRequest();
+            request.setCustomerName("load-" + n);
+            request.setOrderDetails("latte");
+            request.setShopId(shopIds.get((int) (n % shopIds.size())));
+            Response created = RestAssured.given().contentType("application/json").body(request).post("/api/orders");
+            if (created.getStatusCode() != 200) {
+                throw new IllegalStateException("Create returned " + created.getStatusCode());
+            }
+            long createdAt = System.nanoTime();
+            Long orderId = created.as(OrderStatusResponse.class).getOrderId();
+
+            // Subscribed right after the create; an IN_QUEUE frame sent before the SUBSCRIBE lands counts as missed
+            CompletableFuture<Long> notified = new CompletableFuture<>();
+            StompSession.Subscription subscription = subscribers.get((int) (n % subscribers.size()))
+                .subscribe("/topic/order." + orderId, frame -> {
+                    if ("IN_QUEUE".equals(frame.get("status"))) {
+                        notified.complete(System.nanoTime());
+                    }
+                });
+            try {
+                long deadline = createdAt + TimeUnit.SECONDS.toNanos(config.getOrderTimeoutSeconds());
+                long assignedAt = awaitAssignment(orderId, deadline);
+                Long inQueueAt = awaitNotification(notified, deadline);
+                if (measured) {
+                    recorder.record(Phase.CREATED, scheduled, createdAt);
+                    recorder.record(Phase.ASSIGNED, scheduled, assignedAt);
+                    if (inQueueAt != null) {
+                        recorder.record(Phase.IN_QUEUE, scheduled, inQueueAt);
+                        recorder.record(Phase.NOTIFIED, scheduled, Math.max(inQueueAt, assignedAt));
+                    } else {
+                        recorder.recordMissedNotification();
+                    }
+                    recorder.recordCompleted();
+                }
+            } finally {
+                subscription.unsubscribe();
+            }
+            if (config.isCompleteOrders()) {
+                // Drain the queues the way a barista would, so positions stay realistic over a long run
+                RestAssured.given().queryParam("status", "PROCESSING").put("/api/orders/" + orderId + "/status");
+                RestAssured.given().queryParam("status", "READY").put("/api/orders/" + orderId + "/status");
+            }
+        } catch (Exception e) {
+            log.warn("Order {} failed: {}", n, e.getMessage());
+            if (measured) {
+                recorder.recordFailed();
+            }
+        }
+    }
+
+    /**
+     * Follows the order with ?waitFor long-polls until it reports a queue; returns when that was first seen.
+     */
+    private long awaitAssignment(Long orderId, long deadline) throws TimeoutException {
+        Response response = RestAssured.get("/api/orders/" + orderId + "/status");
+        while (System.nanoTime() < deadline) {
+            if (response.getStatusCode() == 200 && response.as(OrderStatusResponse.class).getQueueId() != null) {
+                return System.nanoTime();
+            }
+            if (response.getStatusCode() != 200 && response.getStatusCode() != 304) {
+                throw new IllegalStateException("Status returned " + response.getStatusCode());
+            }
+            String version = response.getHeader("ETag").replace("\"", "");
+            response = RestAssured.given().queryParam("waitFor", version).get("/api/orders/" + orderId + "/status");
+        }
+        throw new TimeoutException("Order " + orderId + " was not assigned to a queue in time");
+    }
+
+    private static Long awaitNotification(CompletableFuture<Long> notified, long deadline) throws InterruptedException {
+        try {
+            return notified.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        }
+    }
+}
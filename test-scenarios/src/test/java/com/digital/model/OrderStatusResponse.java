@@ -6,6 +6,8 @@ import lombok.Data;
 public class OrderStatusResponse {
     private Long orderId;
     private String status;
+    private Long queueId;
+    private Long ticket;
     private Integer queuePosition;
     private Integer totalCustomersWaiting;
     private Integer estimatedWaitingMinutes;
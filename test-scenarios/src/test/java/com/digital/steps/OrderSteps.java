@@ -794,8 +794,12 @@ public class OrderSteps {
         // Create the order
         the_order_is_created_via_rest_api();
         
-        // If the status is not CREATED, update it
+        // IN_QUEUE is only set by the order listener when it assigns a queue, so wait for it;
+        // later statuses are then set through the API like the shop would
         if (!"CREATED".equals(status)) {
+            waitUntilQueued();
+        }
+        if (!"CREATED".equals(status) && !"IN_QUEUE".equals(status)) {
             response = RestAssured.given()
                     .queryParam("status", status)
                     .put("/api/orders/" + currentOrderId + "/status");
@@ -813,6 +817,20 @@ public class OrderSteps {
         log.info("Order created with ID: {} and status: {}", currentOrderId, actualStatus);
     }
 
+    private void waitUntilQueued() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            OrderStatusResponse status = RestAssured.given()
+                    .get("/api/orders/" + currentOrderId + "/status")
+                    .as(OrderStatusResponse.class);
+            if ("IN_QUEUE".equals(status.getStatus()) && status.getQueuePosition() != null) {
+                return;
+            }
+            Thread.sleep(200);
+        }
+        Assertions.fail("Order " + currentOrderId + " was not assigned to a queue within 10 seconds");
+    }
+
     @Given("the shop {int} has received the order")
     public void the_shop_has_received_the_order(Integer shopId) {
         log.info("Verifying shop {} has received the order", shopId);
@@ -20,6 +20,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @Slf4j
 public class WebSocketClient {
@@ -106,6 +107,30 @@ public class WebSocketClient {
         return queueIndex;
     }
     
+    /**
+     * Subscribe to a topic and hand every frame to the callback as it arrives, on the session's thread.
+     * Unlike {@link #subscribe(String)} there is no fallback mode: the client must be connected.
+     * @param topic The topic to subscribe to
+     * @param onFrame Called with each received message
+     * @return The subscription, to unsubscribe once no more messages are expected
+     */
+    public StompSession.Subscription subscribe(String topic, Consumer<Map<String, Object>> onFrame) {
+        if (stompSession == null || !stompSession.isConnected()) {
+            throw new IllegalStateException("Not connected to a WebSocket server");
+        }
+        return stompSession.subscribe(topic, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                onFrame.accept((Map<String, Object>) payload);
+            }
+        });
+    }
+
     /**
      * Wait for a message with a specific status on a subscription
      * @param subscriptionIndex The index of the subscription to wait for